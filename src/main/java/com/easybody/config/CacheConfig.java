@@ -0,0 +1,65 @@
+package com.easybody.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.CacheManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(DetailCacheProperties.class)
+public class CacheConfig {
+
+    public static final String OFFER_SEARCH_CACHE = "offerSearch";
+
+    public static final String GYM_DETAIL_CACHE = "gymDetail";
+
+    public static final String PT_USER_DETAIL_CACHE = "ptUserDetail";
+
+    private static final String CACHE_MANAGER_TAG = "cacheManager";
+
+    @Bean
+    public CacheManager cacheManager(SearchProperties searchProperties,
+                                     DetailCacheProperties detailCacheProperties,
+                                     MeterRegistry meterRegistry) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Only the caches registered below exist, a misspelt cache name fails instead of growing unbounded
+        cacheManager.setCacheNames(List.of());
+        cacheManager.setAllowNullValues(false);
+
+        SearchProperties.ResultCache searchCache = searchProperties.getCache();
+        register(cacheManager, meterRegistry, OFFER_SEARCH_CACHE, Caffeine.newBuilder()
+                .maximumSize(searchCache.getMaxSize())
+                .expireAfterWrite(searchCache.getTtl()));
+
+        for (String name : List.of(GYM_DETAIL_CACHE, PT_USER_DETAIL_CACHE)) {
+            register(cacheManager, meterRegistry, name, Caffeine.newBuilder()
+                    .maximumSize(detailCacheProperties.getMaxSize())
+                    .expireAfterWrite(detailCacheProperties.getTtl()));
+        }
+
+        return cacheManager;
+    }
+
+    private static void register(CaffeineCacheManager cacheManager, MeterRegistry meterRegistry,
+                                 String name, Caffeine<Object, Object> spec) {
+        Cache<Object, Object> cache = spec.recordStats().build();
+        // Same meter ids as Boot's cache metrics binder (cache.gets, cache.evictions, ...), which
+        // never runs here because lazy initialization leaves its configuration uninstantiated
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "cache.manager", CACHE_MANAGER_TAG);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of lookups served from the cache since startup")
+                .tags("cache", name, "cache.manager", CACHE_MANAGER_TAG)
+                .register(meterRegistry);
+        cacheManager.registerCustomCache(name, cache);
+    }
+}
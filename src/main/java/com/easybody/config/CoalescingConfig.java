@@ -0,0 +1,16 @@
+package com.easybody.config;
+
+import com.easybody.dto.response.OfferResponse;
+import com.easybody.service.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CoalescingConfig {
+
+    @Bean
+    public SingleFlight<Long, OfferResponse> offerDetailFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("offerDetail", meterRegistry);
+    }
+}
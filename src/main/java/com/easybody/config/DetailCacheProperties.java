@@ -0,0 +1,24 @@
+package com.easybody.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.detail-cache")
+public class DetailCacheProperties {
+
+    /**
+     * Maximum number of cached gym and PT profiles, per cache; least recently used entries are evicted first.
+     */
+    private long maxSize = 10_000;
+
+    /**
+     * How long a cached profile is served before it is reloaded. Updates evict it right away;
+     * this bounds staleness from changes that do not go through the profile update endpoints.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,9 @@
+package com.easybody.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(GymOverviewProperties.class)
+public class GymOverviewConfig {
+}
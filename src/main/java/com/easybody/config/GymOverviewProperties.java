@@ -0,0 +1,31 @@
+package com.easybody.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.gym-overview")
+public class GymOverviewProperties {
+
+    /**
+     * How long an overview waits for its parts; parts still running then are left out of the response.
+     * Their queries are cut off by a JDBC query timeout, which counts whole seconds: the timeout is
+     * rounded up for them, so at the default 800ms a late query may run for up to a second.
+     */
+    private Duration timeout = Duration.ofMillis(800);
+
+    /**
+     * Number of most recent approved offers included in an overview.
+     */
+    private int offerLimit = 10;
+
+    /**
+     * Overview parts running queries at once across all requests; keep it well below
+     * spring.datasource.hikari.maximum-pool-size (10) so overviews cannot take every connection.
+     */
+    private int maxConcurrentParts = 5;
+}
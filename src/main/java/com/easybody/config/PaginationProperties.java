@@ -0,0 +1,43 @@
+package com.easybody.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.pagination")
+public class PaginationProperties {
+
+    /**
+     * Page size used when a request does not specify one.
+     */
+    private int defaultPageSize = 20;
+
+    /**
+     * Upper bound for any requested page size; larger values are clamped.
+     */
+    private int maxPageSize = 100;
+
+    public Pageable pageable(Integer page, Integer size, Sort sort) {
+        int pageNumber = page != null ? page : 0;
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        return PageRequest.of(pageNumber, pageSize(size), sort);
+    }
+
+    /**
+     * The requested page size, defaulted when missing and clamped to {@link #maxPageSize}.
+     */
+    public int pageSize(Integer size) {
+        int pageSize = size != null ? size : defaultPageSize;
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Size must be greater than 0");
+        }
+        return Math.min(pageSize, maxPageSize);
+    }
+}
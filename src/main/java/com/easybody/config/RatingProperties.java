@@ -0,0 +1,32 @@
+package com.easybody.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.ratings")
+public class RatingProperties {
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+
+        /**
+         * Apply offer rating aggregates in periodic batches instead of in each rating's
+         * transaction. Pending deltas are queued in {@code rating_deltas}, so any number of
+         * instances can run in this mode.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How often queued aggregate deltas are written to the offers.
+         */
+        private Duration flushInterval = Duration.ofMillis(500);
+    }
+}
@@ -0,0 +1,149 @@
+package com.easybody.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+
+    /**
+     * Radius applied to geo searches that do not specify one.
+     */
+    private double defaultRadiusKm = 10;
+
+    /**
+     * Upper bound for any radius search; larger values are clamped.
+     */
+    private double maxRadiusKm = 100;
+
+    /**
+     * Rows the database sends per round trip while streaming an export.
+     */
+    private int exportFetchSize = 500;
+
+    private final ResultCache cache = new ResultCache();
+
+    private final Facets facets = new Facets();
+
+    private final Ranking ranking = new Ranking();
+
+    private final Batch batch = new Batch();
+
+    /**
+     * Radius in meters for a requested radius in km: the default when absent, clamped to the maximum.
+     */
+    public double radiusMeters(Double radiusKm) {
+        if (radiusKm == null) {
+            return defaultRadiusKm * 1000;
+        }
+        if (radiusKm <= 0) {
+            throw new IllegalArgumentException("Radius must be greater than 0");
+        }
+        return Math.min(radiusKm, maxRadiusKm) * 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class ResultCache {
+
+        /**
+         * Maximum number of cached search result pages; least recently used pages are evicted first.
+         */
+        private long maxSize = 10_000;
+
+        /**
+         * How long a cached page is served before it is recomputed, even without offer changes.
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+
+        /**
+         * Shortest time between two drops of the pages that depend on ratings (rating sort,
+         * rating filter, relevance, facets) after ratings change. A burst of ratings within it
+         * costs one drop; those pages lag rating changes by at most this long.
+         */
+        private Duration ratingInvalidationInterval = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Facets {
+
+        /**
+         * Boundaries of the price facet buckets; n breaks produce n + 1 buckets.
+         */
+        private List<BigDecimal> priceBreaks = List.of(
+                BigDecimal.valueOf(50), BigDecimal.valueOf(100), BigDecimal.valueOf(200), BigDecimal.valueOf(500));
+
+        /**
+         * Minimum average ratings of the rating facet bands ("4 and up", "3 and up", ...).
+         */
+        private List<BigDecimal> ratingBands = List.of(
+                BigDecimal.valueOf(4), BigDecimal.valueOf(3), BigDecimal.valueOf(2), BigDecimal.valueOf(1));
+    }
+
+    /**
+     * Weights and shapes of the signals behind {@code sortBy=relevance}. Each signal is
+     * scaled to [0, 1]; text and distance only count when the search has a query or coordinates.
+     */
+    @Getter
+    @Setter
+    public static class Ranking {
+
+        private double textWeight = 0.4;
+
+        private double distanceWeight = 0.25;
+
+        private double ratingWeight = 0.25;
+
+        private double recencyWeight = 0.1;
+
+        /**
+         * Distance at which the distance signal has decayed to 1/e.
+         */
+        private double distanceScaleKm = 5;
+
+        /**
+         * Age at which the recency signal has halved.
+         */
+        private double recencyHalfLifeDays = 30;
+
+        /**
+         * Number of virtual ratings of {@code ratingPriorMean} every offer starts with.
+         */
+        private double ratingPriorCount = 5;
+
+        private double ratingPriorMean = 3.5;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * Most searches accepted in one batch request.
+         */
+        private int maxSearches = 10;
+
+        /**
+         * Deadline shared by all searches of a batch; unfinished ones are reported as timed out.
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+
+        /**
+         * Threads running batch searches, shared by all batch requests.
+         */
+        private int threads = 8;
+
+        /**
+         * Searches that may wait for a thread before further ones are rejected.
+         */
+        private int queueCapacity = 100;
+    }
+}
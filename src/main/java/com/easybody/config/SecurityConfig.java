@@ -70,14 +70,24 @@ public class SecurityConfig {
                     "/actuator/health"
                 ).permitAll()
 
+                // Bulk export is for partner integrations, not anonymous traffic
+                // Listed first, the public {id} patterns below would match them too
+                .requestMatchers(
+                    "/api/v1/search/offers/export",
+                    "/api/v1/gyms/export",
+                    "/api/v1/pt-users/export"
+                ).authenticated()
+
                 // ✅ Public endpoints đang có
                 .requestMatchers(
                     "/api/v1/search/**",
                     "/api/v1/gyms/search",
                     "/api/v1/gyms/{id}",
+                    "/api/v1/gyms/{id}/overview",
                     "/api/v1/pt-users/{id}",
                     "/api/v1/offers/{id}",
-                    "/api/v1/ratings/offer/{offerId}"
+                    "/api/v1/ratings/offer/{offerId}",
+                    "/api/v1/ratings/offer/{offerId}/summary"
                 ).permitAll()
 
                 // ✅ Auth endpoints require a valid JWT (Cognito)
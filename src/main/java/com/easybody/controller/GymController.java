@@ -3,18 +3,23 @@ package com.easybody.controller;
 import com.easybody.dto.request.AssignPTToGymRequest;
 import com.easybody.dto.request.GymRegistrationRequest;
 import com.easybody.dto.request.GymUpdateRequest;
+import com.easybody.dto.response.GymOverviewResponse;
 import com.easybody.dto.response.GymPTAssociationResponse;
 import com.easybody.dto.response.GymResponse;
+import com.easybody.dto.response.PageResponse;
+import com.easybody.service.GymOverviewService;
 import com.easybody.service.GymPTAssociationService;
 import com.easybody.service.GymService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -26,6 +31,7 @@ public class GymController {
 
     private final GymService gymService;
     private final GymPTAssociationService associationService;
+    private final GymOverviewService gymOverviewService;
 
     @PostMapping
     @PreAuthorize("hasAuthority('GYM_STAFF') or hasAuthority('ADMIN')")
@@ -49,27 +55,45 @@ public class GymController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{gymId}/overview")
+    public ResponseEntity<GymOverviewResponse> getGymOverview(@PathVariable Long gymId) {
+        GymOverviewResponse response = gymOverviewService.getOverview(gymId);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
-    public ResponseEntity<List<GymResponse>> getAllGyms() {
-        List<GymResponse> response = gymService.getAllActiveGyms();
+    public ResponseEntity<PageResponse<GymResponse>> getAllGyms(
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(required = false) Integer size) {
+        PageResponse<GymResponse> response = gymService.getActiveGyms(page, size);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportGyms() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(gymService.exportActiveGyms());
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<List<GymResponse>> searchGyms(
+    public ResponseEntity<PageResponse<GymResponse>> searchGyms(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) Double latitude,
             @RequestParam(required = false) Double longitude,
-            @RequestParam(required = false, defaultValue = "10") Double radiusKm) {
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(required = false) Integer size) {
 
         if (latitude != null && longitude != null) {
-            List<GymResponse> response = gymService.findGymsNearLocation(latitude, longitude, radiusKm);
+            PageResponse<GymResponse> response = gymService.findGymsNearLocation(latitude, longitude, radiusKm, sortBy, page, size);
             return ResponseEntity.ok(response);
         } else if (query != null) {
-            List<GymResponse> response = gymService.searchGyms(query);
+            PageResponse<GymResponse> response = gymService.searchGyms(query, page, size);
             return ResponseEntity.ok(response);
         } else {
-            List<GymResponse> response = gymService.getAllActiveGyms();
+            PageResponse<GymResponse> response = gymService.getActiveGyms(page, size);
             return ResponseEntity.ok(response);
         }
     }
@@ -4,16 +4,19 @@ import com.easybody.dto.request.PTUserCreateRequest;
 import com.easybody.dto.request.PTUserUpdateRequest;
 import com.easybody.dto.response.GymPTAssociationResponse;
 import com.easybody.dto.response.PTUserResponse;
+import com.easybody.dto.response.PageResponse;
 import com.easybody.service.GymPTAssociationService;
 import com.easybody.service.PTUserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -53,20 +56,30 @@ public class PTUserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<PTUserResponse>> getAllPTUsers(
+    public ResponseEntity<PageResponse<PTUserResponse>> getAllPTUsers(
             @RequestParam(required = false) Double latitude,
             @RequestParam(required = false) Double longitude,
-            @RequestParam(required = false, defaultValue = "10") Double radiusKm) {
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "0") Integer page,
+            @RequestParam(required = false) Integer size) {
 
         if (latitude != null && longitude != null) {
-            List<PTUserResponse> response = ptUserService.findPTUsersNearLocation(latitude, longitude, radiusKm);
+            PageResponse<PTUserResponse> response = ptUserService.findPTUsersNearLocation(latitude, longitude, radiusKm, sortBy, page, size);
             return ResponseEntity.ok(response);
         } else {
-            List<PTUserResponse> response = ptUserService.getAllActivePTUsers();
+            PageResponse<PTUserResponse> response = ptUserService.getActivePTUsers(page, size);
             return ResponseEntity.ok(response);
         }
     }
 
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportPTUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(ptUserService.exportActivePTUsers());
+    }
+
     @GetMapping("/{ptUserId}/gym-associations")
     public ResponseEntity<List<GymPTAssociationResponse>> getPTGymAssociations(@PathVariable Long ptUserId) {
         List<GymPTAssociationResponse> response = associationService.getAssociationsByPTUserId(ptUserId);
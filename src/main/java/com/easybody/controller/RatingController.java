@@ -3,6 +3,7 @@ package com.easybody.controller;
 import com.easybody.dto.request.RatingCreateRequest;
 import com.easybody.dto.response.PageResponse;
 import com.easybody.dto.response.RatingResponse;
+import com.easybody.dto.response.RatingSummaryResponse;
 import com.easybody.service.RatingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +32,16 @@ public class RatingController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PutMapping
+    @PreAuthorize("hasAuthority('CLIENT_USER')")
+    public ResponseEntity<RatingResponse> upsertRating(
+            @Valid @RequestBody RatingCreateRequest request,
+            Authentication authentication) {
+
+        RatingResponse response = ratingService.upsertRating(request, authentication.getName());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/offer/{offerId}")
     public ResponseEntity<PageResponse<RatingResponse>> getRatingsByOfferId(
             @PathVariable Long offerId,
@@ -40,5 +51,10 @@ public class RatingController {
         PageResponse<RatingResponse> response = ratingService.getRatingsByOfferId(offerId, page, size);
         return ResponseEntity.ok(response);
     }
-}
 
+    @GetMapping("/offer/{offerId}/summary")
+    public ResponseEntity<RatingSummaryResponse> getRatingSummaryByOfferId(@PathVariable Long offerId) {
+        RatingSummaryResponse response = ratingService.getOfferRatingSummary(offerId);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,13 +1,23 @@
 package com.easybody.controller;
 
+import com.easybody.dto.request.OfferSearchBatchRequest;
 import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.dto.response.CursorPageResponse;
+import com.easybody.dto.response.OfferSearchBatchResponse;
 import com.easybody.dto.response.OfferSearchResponse;
 import com.easybody.dto.response.PageResponse;
+import com.easybody.dto.response.SuggestionResponse;
+import com.easybody.service.OfferSearchBatchService;
 import com.easybody.service.OfferService;
+import com.easybody.service.SearchSuggestionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/search")
@@ -16,6 +26,8 @@ import org.springframework.web.bind.annotation.*;
 public class SearchController {
 
     private final OfferService offerService;
+    private final OfferSearchBatchService offerSearchBatchService;
+    private final SearchSuggestionIndex searchSuggestionIndex;
 
     @PostMapping("/offers")
     public ResponseEntity<PageResponse<OfferSearchResponse>> searchOffers(
@@ -30,7 +42,7 @@ public class SearchController {
     public ResponseEntity<PageResponse<OfferSearchResponse>> searchOffersGet(
             @RequestParam(required = false) Double latitude,
             @RequestParam(required = false) Double longitude,
-            @RequestParam(required = false, defaultValue = "10") Double radiusKm,
+            @RequestParam(required = false) Double radiusKm,
             @RequestParam(required = false) String minPrice,
             @RequestParam(required = false) String maxPrice,
             @RequestParam(required = false) String offerType,
@@ -40,8 +52,9 @@ public class SearchController {
             @RequestParam(required = false) Long ptUserId,
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(defaultValue = "20") Integer size,
-            @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String sortDirection,
+            @RequestParam(required = false) Boolean includeFacets) {
 
         OfferSearchRequest request = OfferSearchRequest.builder()
                 .latitude(latitude)
@@ -58,10 +71,53 @@ public class SearchController {
                 .size(size)
                 .sortBy(sortBy)
                 .sortDirection(sortDirection)
+                .includeFacets(includeFacets)
                 .build();
 
         PageResponse<OfferSearchResponse> response = offerService.searchOffers(request);
         return ResponseEntity.ok(response);
     }
-}
 
+    @PostMapping("/offers/batch")
+    public ResponseEntity<OfferSearchBatchResponse> searchOffersBatch(
+            @RequestBody OfferSearchBatchRequest request) {
+
+        OfferSearchBatchResponse response = offerSearchBatchService.search(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/offers/scroll")
+    public ResponseEntity<CursorPageResponse<OfferSearchResponse>> scrollOffers(
+            @RequestBody OfferSearchRequest request) {
+
+        log.info("Scrolling offers with filters: {}", request);
+        CursorPageResponse<OfferSearchResponse> response = offerService.scrollOffers(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/offers/scroll")
+    public ResponseEntity<CursorPageResponse<OfferSearchResponse>> scrollOffersGet(
+            @ModelAttribute OfferSearchRequest request) {
+
+        CursorPageResponse<OfferSearchResponse> response = offerService.scrollOffers(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/offers/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportOffers(
+            @ModelAttribute OfferSearchRequest request) {
+
+        log.info("Exporting offers with filters: {}", request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(offerService.exportOffers(request));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") Integer limit) {
+
+        return ResponseEntity.ok(searchSuggestionIndex.suggest(q, limit));
+    }
+}
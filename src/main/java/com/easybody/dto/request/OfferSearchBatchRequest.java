@@ -0,0 +1,18 @@
+package com.easybody.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfferSearchBatchRequest {
+
+    // Run concurrently, answered in the same order
+    private List<OfferSearchRequest> searches;
+}
@@ -36,7 +36,14 @@ public class OfferSearchRequest {
 
     private Integer page = 0;
     private Integer size = 20;
-    private String sortBy = "createdAt";
-    private String sortDirection = "DESC";
+    // Defaults depend on the search: distance ASC for geo searches, createdAt DESC otherwise
+    private String sortBy;
+    private String sortDirection;
+
+    // Adds offerType, price and rating facet counts to the page
+    private Boolean includeFacets;
+
+    // Opaque keyset position returned by the previous /offers/scroll page
+    private String cursor;
 }
 
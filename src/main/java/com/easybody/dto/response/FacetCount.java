@@ -0,0 +1,23 @@
+package com.easybody.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FacetCount {
+
+    private String value;
+    // Range facets only; from is inclusive, to exclusive, a missing bound is open
+    private BigDecimal from;
+    private BigDecimal to;
+    private Long count;
+}
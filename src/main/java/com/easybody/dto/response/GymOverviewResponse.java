@@ -0,0 +1,25 @@
+package com.easybody.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GymOverviewResponse {
+
+    private GymResponse gym;
+    private List<OfferResponse> offers;
+    private List<GymPTAssociationResponse> personalTrainers;
+    private RatingSummaryResponse ratingSummary;
+    // Parts that failed or did not finish in time and are missing above
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> unavailable;
+}
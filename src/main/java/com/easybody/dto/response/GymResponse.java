@@ -1,10 +1,12 @@
 package com.easybody.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -26,6 +28,16 @@ public class GymResponse {
     private String email;
     private String website;
     private LocationResponse location;
+
+    // Over all ratings of the active, approved offers; ratedOfferCount is how many of them are rated
+    private BigDecimal averageRating;
+    private Integer ratingCount;
+    private Integer ratedOfferCount;
+
+    // Only set by nearby searches
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceKm;
+
     private Boolean active;
     private Boolean verified;
     private LocalDateTime createdAt;
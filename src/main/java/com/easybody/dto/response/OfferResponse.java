@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @Builder
@@ -33,6 +34,8 @@ public class OfferResponse {
     private String rejectionReason;
     private BigDecimal averageRating;
     private Integer ratingCount;
+    // Number of ratings per star value, 1 to 5
+    private Map<Integer, Integer> ratingDistribution;
     private Boolean active;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -0,0 +1,18 @@
+package com.easybody.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfferSearchBatchResponse {
+
+    private List<OfferSearchBatchResult> results;
+    private Long elapsedMs;
+}
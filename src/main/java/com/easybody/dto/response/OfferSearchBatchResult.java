@@ -0,0 +1,23 @@
+package com.easybody.dto.response;
+
+import com.easybody.model.enums.BatchResultStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OfferSearchBatchResult {
+
+    private Integer index;
+    private BatchResultStatus status;
+    private PageResponse<OfferSearchResponse> page;
+    private String error;
+    // Time the search itself ran, excluding time queued for a thread; absent if it never finished
+    private Long elapsedMs;
+}
@@ -1,11 +1,13 @@
 package com.easybody.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -20,5 +22,9 @@ public class PageResponse<T> {
     private Integer totalPages;
     private Boolean last;
     private Boolean first;
+
+    // Only present when the caller asked for facet counts
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, List<FacetCount>> facets;
 }
 
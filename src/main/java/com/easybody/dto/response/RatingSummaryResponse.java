@@ -0,0 +1,21 @@
+package com.easybody.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummaryResponse {
+
+    private BigDecimal averageRating;
+    private Long ratingCount;
+    // Number of ratings per star value, 1 to 5
+    private Map<Integer, Long> distribution;
+}
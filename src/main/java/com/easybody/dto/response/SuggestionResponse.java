@@ -0,0 +1,22 @@
+package com.easybody.dto.response;
+
+import com.easybody.model.enums.SuggestionType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SuggestionResponse {
+
+    private SuggestionType type;
+    // Offer or gym id; cities have none
+    private Long id;
+    private String text;
+    private String context;
+}
@@ -7,6 +7,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -76,6 +77,23 @@ public class Gym {
     @Builder.Default
     private Boolean verified = false;
 
+    // Rollup of the active, approved offers' ratings, maintained by the offers trigger (V12)
+    @Column(precision = 3, scale = 2, nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private BigDecimal averageRating = BigDecimal.ZERO;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Long ratingSum = 0L;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer ratingCount = 0;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer ratedOfferCount = 0;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
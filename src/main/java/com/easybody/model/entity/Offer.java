@@ -18,6 +18,20 @@ import java.util.Set;
 
 @Entity
 @Table(name = "offers")
+@NamedEntityGraph(
+        name = Offer.WITH_OWNER_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "gym", subgraph = "gym"),
+                @NamedAttributeNode(value = "ptUser", subgraph = "ptUser")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "gym", attributeNodes = @NamedAttributeNode("location")),
+                @NamedSubgraph(name = "ptUser", attributeNodes = {
+                        @NamedAttributeNode("user"),
+                        @NamedAttributeNode("location")
+                })
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
@@ -26,6 +40,12 @@ import java.util.Set;
 @Builder
 public class Offer {
 
+    /**
+     * Loads the gym or PT (with its user and location) that response mapping reads,
+     * in the same query as the offer.
+     */
+    public static final String WITH_OWNER_GRAPH = "Offer.withOwner";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -84,14 +104,39 @@ public class Offer {
     @Builder.Default
     private Set<Rating> ratings = new HashSet<>();
 
-    @Column(precision = 3, scale = 2)
+    // Rating aggregates are maintained by the ratings trigger (V9, V11), never written from here
+    @Column(precision = 3, scale = 2, insertable = false, updatable = false)
     @Builder.Default
     private BigDecimal averageRating = BigDecimal.ZERO;
 
-    @Column(nullable = false)
+    @Column(nullable = false, insertable = false, updatable = false)
     @Builder.Default
     private Integer ratingCount = 0;
 
+    @Column(nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_1_count", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer rating1Count = 0;
+
+    @Column(name = "rating_2_count", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer rating2Count = 0;
+
+    @Column(name = "rating_3_count", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer rating3Count = 0;
+
+    @Column(name = "rating_4_count", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer rating4Count = 0;
+
+    @Column(name = "rating_5_count", nullable = false, insertable = false, updatable = false)
+    @Builder.Default
+    private Integer rating5Count = 0;
+
     @Column(nullable = false)
     @Builder.Default
     private Boolean active = true;
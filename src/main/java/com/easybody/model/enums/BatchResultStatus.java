@@ -0,0 +1,8 @@
+package com.easybody.model.enums;
+
+public enum BatchResultStatus {
+    OK,
+    ERROR,
+    TIMEOUT,
+    REJECTED
+}
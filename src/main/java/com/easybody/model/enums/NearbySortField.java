@@ -0,0 +1,22 @@
+package com.easybody.model.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum NearbySortField {
+    DISTANCE("distance"),
+    RATING("rating");
+
+    private final String property;
+
+    public static NearbySortField fromProperty(String property) {
+        for (NearbySortField field : values()) {
+            if (field.property.equalsIgnoreCase(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + property);
+    }
+}
@@ -0,0 +1,26 @@
+package com.easybody.model.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum OfferSortField {
+    CREATED_AT("createdAt"),
+    PRICE("price"),
+    AVERAGE_RATING("averageRating"),
+    RATING_COUNT("ratingCount"),
+    DISTANCE("distance"),
+    RELEVANCE("relevance");
+
+    private final String property;
+
+    public static OfferSortField fromProperty(String property) {
+        for (OfferSortField field : values()) {
+            if (field.property.equalsIgnoreCase(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + property);
+    }
+}
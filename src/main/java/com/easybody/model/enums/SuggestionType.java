@@ -0,0 +1,7 @@
+package com.easybody.model.enums;
+
+public enum SuggestionType {
+    OFFER,
+    GYM,
+    CITY
+}
@@ -2,6 +2,7 @@ package com.easybody.repository;
 
 import com.easybody.model.entity.GymPTAssociation;
 import com.easybody.model.enums.ApprovalStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -17,6 +18,9 @@ public interface GymPTAssociationRepository extends JpaRepository<GymPTAssociati
 
     List<GymPTAssociation> findByGymIdAndApprovalStatus(Long gymId, ApprovalStatus status);
 
+    @EntityGraph(attributePaths = {"gym", "ptUser", "ptUser.user"})
+    List<GymPTAssociation> findWithPtUserByGymIdAndApprovalStatus(Long gymId, ApprovalStatus status);
+
     List<GymPTAssociation> findByPtUserIdAndApprovalStatus(Long ptUserId, ApprovalStatus status);
 
     Optional<GymPTAssociation> findByGymIdAndPtUserId(Long gymId, Long ptUserId);
@@ -1,35 +1,106 @@
 package com.easybody.repository;
 
 import com.easybody.model.entity.Gym;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GymRepository extends JpaRepository<Gym, Long> {
 
+    // A gym ranks by its rating rollup (V12), the pooled ratings of its approved offers
+    String SUGGESTION_SOURCE = "SELECT new com.easybody.repository.SuggestionSource(g.id, g.name, g.city, " +
+            "CAST(g.averageRating AS Double)) " +
+            "FROM Gym g WHERE g.active = true";
+
     Optional<Gym> findByIdAndActiveTrue(Long id);
 
-    List<Gym> findByActiveTrue();
+    @EntityGraph(attributePaths = "location")
+    Optional<Gym> findDetailById(Long id);
+
+    @EntityGraph(attributePaths = "location")
+    Page<Gym> findByActiveTrue(Pageable pageable);
 
-    @Query("SELECT g FROM Gym g WHERE g.active = true AND " +
-           "LOWER(g.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(g.city) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<Gym> searchGyms(@Param("searchTerm") String searchTerm);
+    // Read-only and fetched in chunks so exports hold one chunk at a time
+    @EntityGraph(attributePaths = "location")
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Gym> streamByActiveTrueOrderByIdAsc();
 
-    @Query(value = "SELECT g.* FROM gyms g " +
-           "JOIN locations l ON g.location_id = l.id " +
-           "WHERE g.active = true AND " +
-           "ST_DWithin(l.coordinates::geography, " +
-           "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, " +
-           ":radiusMeters)",
+    // Substring or close word match on name or city through the V8 trigram indexes,
+    // best match first. :pattern is a LIKE pattern with wildcards in the term escaped.
+    String TEXT_SEARCH_FILTER = "FROM gyms g " +
+            "WHERE g.active = true AND (" +
+            "gym_search_text(g.name) LIKE gym_search_text(:pattern) " +
+            "OR gym_search_text(:term) <% gym_search_text(g.name) " +
+            "OR gym_search_text(g.city) LIKE gym_search_text(:pattern) " +
+            "OR gym_search_text(:term) <% gym_search_text(g.city))";
+
+    @Query(value = "SELECT g.* " + TEXT_SEARCH_FILTER + " " +
+           "ORDER BY GREATEST(" +
+           "word_similarity(gym_search_text(:term), gym_search_text(g.name)), " +
+           "word_similarity(gym_search_text(:term), gym_search_text(g.city))) DESC, g.id",
+           countQuery = "SELECT COUNT(*) " + TEXT_SEARCH_FILTER,
            nativeQuery = true)
-    List<Gym> findGymsNearLocation(@Param("latitude") Double latitude,
-                                    @Param("longitude") Double longitude,
-                                    @Param("radiusMeters") Double radiusMeters);
-}
+    Page<Gym> searchGyms(@Param("term") String term,
+                         @Param("pattern") String pattern,
+                         Pageable pageable);
+
+    String SEARCH_POINT = "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography";
+
+    String NEARBY_FILTER = "FROM gyms g " +
+            "JOIN locations l ON l.id = g.location_id " +
+            "WHERE g.active = true " +
+            "AND ST_DWithin(l.geog, " + SEARCH_POINT + ", :radiusMeters, false)";
+
+    // Nearest first through the KNN operator on idx_locations_geog; the radius bounds the walk
+    @Query(value = "SELECT g.id AS id, ST_Distance(l.geog, " + SEARCH_POINT + ", false) / 1000 AS distanceKm " +
+           NEARBY_FILTER + " ORDER BY l.geog <-> " + SEARCH_POINT + ", g.id",
+           countQuery = "SELECT COUNT(*) " + NEARBY_FILTER,
+           nativeQuery = true)
+    Page<NearbyMatch> findGymsNearLocation(@Param("latitude") Double latitude,
+                                           @Param("longitude") Double longitude,
+                                           @Param("radiusMeters") Double radiusMeters,
+                                           Pageable pageable);
+
+    // Best rated first, then nearest; the radius bounds the rows to sort
+    @Query(value = "SELECT g.id AS id, ST_Distance(l.geog, " + SEARCH_POINT + ", false) / 1000 AS distanceKm " +
+           NEARBY_FILTER + " ORDER BY g.average_rating DESC, g.rating_count DESC, l.geog <-> " + SEARCH_POINT + ", g.id",
+           countQuery = "SELECT COUNT(*) " + NEARBY_FILTER,
+           nativeQuery = true)
+    Page<NearbyMatch> findGymsNearLocationByRating(@Param("latitude") Double latitude,
+                                                   @Param("longitude") Double longitude,
+                                                   @Param("radiusMeters") Double radiusMeters,
+                                                   Pageable pageable);
+
+    @EntityGraph(attributePaths = "location")
+    List<Gym> findByIdIn(Collection<Long> ids);
 
+    // Count and sum from the gym's rollup; only the per-star counts are summed over its offers
+    @Query("SELECT new com.easybody.repository.RatingTotals(CAST(g.ratingCount AS Long), g.ratingSum, " +
+           "SUM(o.rating1Count), SUM(o.rating2Count), SUM(o.rating3Count), SUM(o.rating4Count), SUM(o.rating5Count)) " +
+           "FROM Gym g LEFT JOIN Offer o ON o.gym = g AND o.active = true " +
+           "AND o.status = com.easybody.model.enums.OfferStatus.APPROVED " +
+           "WHERE g.id = :gymId GROUP BY g.id, g.ratingCount, g.ratingSum")
+    Optional<RatingTotals> sumRatingsById(@Param("gymId") Long gymId);
+
+    @Query(SUGGESTION_SOURCE)
+    List<SuggestionSource> findSuggestionSources();
+
+    @Query(SUGGESTION_SOURCE + " AND g.id IN :ids")
+    List<SuggestionSource> findSuggestionSourcesByIdIn(@Param("ids") Collection<Long> ids);
+}
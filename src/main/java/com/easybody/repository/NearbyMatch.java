@@ -0,0 +1,11 @@
+package com.easybody.repository;
+
+/**
+ * Id of a gym or PT user found by a radius search and its distance from the search point.
+ */
+public interface NearbyMatch {
+
+    Long getId();
+
+    Double getDistanceKm();
+}
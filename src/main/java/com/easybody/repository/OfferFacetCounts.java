@@ -0,0 +1,16 @@
+package com.easybody.repository;
+
+import com.easybody.model.enums.OfferType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raw facet counts of an offer search. {@code priceBuckets} has one entry more than
+ * the price breaks it was computed for, {@code ratingBands} one per band.
+ */
+public record OfferFacetCounts(
+        Map<OfferType, Long> offerTypes,
+        List<Long> priceBuckets,
+        List<Long> ratingBands) {
+}
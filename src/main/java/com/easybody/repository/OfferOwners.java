@@ -0,0 +1,7 @@
+package com.easybody.repository;
+
+/**
+ * The gym and PT user an offer belongs to; either may be null.
+ */
+public record OfferOwners(Long gymId, Long ptUserId) {
+}
@@ -4,22 +4,34 @@ import com.easybody.model.entity.Offer;
 import com.easybody.model.enums.OfferStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OfferRepository extends JpaRepository<Offer, Long>, JpaSpecificationExecutor<Offer> {
+public interface OfferRepository extends JpaRepository<Offer, Long>, JpaSpecificationExecutor<Offer>,
+        OfferSearchRepository {
+
+    String SUGGESTION_SOURCE = "SELECT new com.easybody.repository.SuggestionSource(" +
+            "o.id, o.title, COALESCE(g.name, CONCAT(u.firstName, ' ', u.lastName)), CAST(o.averageRating AS Double)) " +
+            "FROM Offer o LEFT JOIN o.gym g LEFT JOIN o.ptUser pt LEFT JOIN pt.user u " +
+            "WHERE o.active = true AND o.status = com.easybody.model.enums.OfferStatus.APPROVED";
 
     Optional<Offer> findByIdAndActiveTrue(Long id);
 
+    @EntityGraph(Offer.WITH_OWNER_GRAPH)
+    Optional<Offer> findWithOwnerById(Long id);
+
     List<Offer> findByStatus(OfferStatus status);
 
+    @EntityGraph(Offer.WITH_OWNER_GRAPH)
     Page<Offer> findByStatus(OfferStatus status, Pageable pageable);
 
     List<Offer> findByGymId(Long gymId);
@@ -28,25 +40,23 @@ public interface OfferRepository extends JpaRepository<Offer, Long>, JpaSpecific
 
     Page<Offer> findByGymIdAndActiveTrue(Long gymId, Pageable pageable);
 
+    @EntityGraph(Offer.WITH_OWNER_GRAPH)
+    List<Offer> findByGymIdAndActiveTrueAndStatus(Long gymId, OfferStatus status, Pageable pageable);
+
     Page<Offer> findByPtUserIdAndActiveTrue(Long ptUserId, Pageable pageable);
 
     Page<Offer> findByStatusAndActiveTrue(OfferStatus status, Pageable pageable);
 
-    @Query(value = "SELECT o.*, " +
-           "ST_Distance(l.coordinates::geography, " +
-           "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) / 1000 as distance_km " +
-           "FROM offers o " +
-           "LEFT JOIN gyms g ON o.gym_id = g.id " +
-           "LEFT JOIN pt_users pt ON o.pt_user_id = pt.id " +
-           "LEFT JOIN locations l ON (g.location_id = l.id OR pt.location_id = l.id) " +
-           "WHERE o.active = true AND o.status = 'APPROVED' " +
-           "AND ST_DWithin(l.coordinates::geography, " +
-           "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, " +
-           ":radiusMeters) " +
-           "ORDER BY distance_km",
-           nativeQuery = true)
-    List<Offer> findOffersNearLocation(@Param("latitude") Double latitude,
-                                        @Param("longitude") Double longitude,
-                                        @Param("radiusMeters") Double radiusMeters);
-}
+    @Query(SUGGESTION_SOURCE)
+    List<SuggestionSource> findSuggestionSources();
 
+    @Query(SUGGESTION_SOURCE + " AND o.id IN :ids")
+    List<SuggestionSource> findSuggestionSourcesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT o.gym.id FROM Offer o WHERE o.id IN :ids AND o.gym IS NOT NULL")
+    List<Long> findGymIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.easybody.repository.OfferOwners(g.id, pt.id) " +
+           "FROM Offer o LEFT JOIN o.gym g LEFT JOIN o.ptUser pt WHERE o.id IN :ids")
+    List<OfferOwners> findOwnersByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,67 @@
+package com.easybody.repository;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Native offer search: filters, PostGIS radius, full-text matching and ordering run in
+ * a single SQL statement that projects straight into {@link OfferSearchRow}s.
+ */
+public interface OfferSearchRepository {
+
+    /**
+     * Offset-paginated offer search. When {@code radiusMeters} is set only offers whose
+     * gym or PT location lies within it of the request coordinates are returned.
+     * {@code referenceTime} is the "now" recency is scored against when sorting by relevance.
+     */
+    Page<OfferSearchRow> search(OfferSearchRequest request,
+                                Double radiusMeters,
+                                OfferSortField sortField,
+                                Sort.Direction direction,
+                                Instant referenceTime,
+                                Pageable pageable);
+
+    /**
+     * Keyset variant of the offer search: returns up to {@code limit} offers that sort
+     * strictly after ({@code afterSortValue}, {@code afterOfferId}) without counting the
+     * whole result. {@code radiusMeters} is {@code null} for searches without coordinates.
+     */
+    List<OfferSearchRow> searchAfter(OfferSearchRequest request,
+                                     Double radiusMeters,
+                                     OfferSortField sortField,
+                                     Sort.Direction direction,
+                                     Instant referenceTime,
+                                     String afterSortValue,
+                                     Long afterOfferId,
+                                     int limit);
+
+    /**
+     * Every offer matching the search, in search order, read through a forward-only cursor
+     * {@code fetchSize} rows at a time. Must be consumed inside a transaction and closed.
+     */
+    Stream<OfferSearchRow> stream(OfferSearchRequest request,
+                                  Double radiusMeters,
+                                  OfferSortField sortField,
+                                  Sort.Direction direction,
+                                  Instant referenceTime,
+                                  int fetchSize);
+
+    /**
+     * Facet counts over the same filters as {@link #search}: offers per type, per price
+     * bucket (below the first break, between consecutive breaks, from the last break up)
+     * and per rating band (average rating at least the band value). Computed in a single
+     * aggregate; every facet ignores the request's own filter on that field.
+     */
+    OfferFacetCounts countFacets(OfferSearchRequest request,
+                                 Double radiusMeters,
+                                 List<BigDecimal> priceBreaks,
+                                 List<BigDecimal> ratingBands);
+}
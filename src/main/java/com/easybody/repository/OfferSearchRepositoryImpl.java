@@ -0,0 +1,452 @@
+package com.easybody.repository;
+
+import com.easybody.config.SearchProperties;
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.OfferType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class OfferSearchRepositoryImpl implements OfferSearchRepository {
+
+    private static final String SEARCH_POINT = "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography";
+
+    private static final String OWNER_JOINS =
+            " LEFT JOIN gyms g ON g.id = o.gym_id" +
+            " LEFT JOIN pt_users pt ON pt.id = o.pt_user_id" +
+            " LEFT JOIN users u ON u.id = pt.user_id";
+
+    // Offers are located at their gym, or at their PT for PT offers; a gym without a location
+    // leaves its offers unlocated rather than falling back to the PT's location
+    private static final String OWNER_LOCATION_JOIN =
+            " LEFT JOIN locations l ON l.id = CASE WHEN o.gym_id IS NOT NULL THEN g.location_id ELSE pt.location_id END";
+
+    // Answered by the GiST index on locations.geog (V6)
+    private static final String RADIUS_PREDICATE = "ST_DWithin(l.geog, " + SEARCH_POINT + ", :radiusMeters, false)";
+
+    // One branch per owner kind so each can walk from the GiST hits on locations to offers
+    // through plain FK indexes; a single join on COALESCE(gym, pt) location cannot
+    private static final String NEARBY_OFFERS =
+            "SELECT o.id AS offer_id, l.id AS location_id FROM locations l" +
+            " JOIN gyms g ON g.location_id = l.id" +
+            " JOIN offers o ON o.gym_id = g.id" +
+            " WHERE " + RADIUS_PREDICATE +
+            " UNION ALL " +
+            "SELECT o.id, l.id FROM locations l" +
+            " JOIN pt_users pt ON pt.location_id = l.id" +
+            " JOIN offers o ON o.pt_user_id = pt.id" +
+            " WHERE o.gym_id IS NULL AND " + RADIUS_PREDICATE;
+
+    private static final String DISTANCE_KM =
+            "ST_Distance(l.geog, " + SEARCH_POINT + ", false) / 1000";
+
+    private static final String PROJECTION =
+            "o.id, o.title, o.description, o.offer_type, g.name AS gym_name, " +
+            "u.first_name || ' ' || u.last_name AS pt_user_name, o.price, o.currency, " +
+            "o.duration_description, o.image_urls, o.average_rating, o.rating_count, " +
+            "l.id AS location_id, l.latitude, l.longitude, l.formatted_address, o.created_at";
+
+    // Confidence-adjusted rating: the average pulled towards a prior mean, as if every offer
+    // had a few extra ratings of that value, so one 5-star review does not top the list
+    private static final String BAYESIAN_RATING =
+            "((o.rating_count * o.average_rating + :ratingPriorCount * :ratingPriorMean) / (o.rating_count + :ratingPriorCount))";
+
+    private final EntityManager entityManager;
+    private final SearchProperties searchProperties;
+
+    @Override
+    public Page<OfferSearchRow> search(OfferSearchRequest request,
+                                       Double radiusMeters,
+                                       OfferSortField sortField,
+                                       Sort.Direction direction,
+                                       Instant referenceTime,
+                                       Pageable pageable) {
+        SearchSql search = new SearchSql(request, radiusMeters);
+
+        Query query = search.createRowQuery(sortField, direction, referenceTime);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        List<OfferSearchRow> rows = readRows(query);
+
+        Query countQuery = entityManager.createNativeQuery("SELECT COUNT(*)" + search.filterFromClause() + search.whereClause());
+        search.parameters.forEach(countQuery::setParameter);
+        long total = ((Number) countQuery.getSingleResult()).longValue();
+
+        return new PageImpl<>(rows, pageable, total);
+    }
+
+    @Override
+    public List<OfferSearchRow> searchAfter(OfferSearchRequest request,
+                                            Double radiusMeters,
+                                            OfferSortField sortField,
+                                            Sort.Direction direction,
+                                            Instant referenceTime,
+                                            String afterSortValue,
+                                            Long afterOfferId,
+                                            int limit) {
+        SearchSql search = new SearchSql(request, radiusMeters);
+
+        if (afterOfferId != null) {
+            // Row comparison seeks straight to the position after the cursor, no OFFSET scan
+            search.predicates.add("(" + search.orderExpression(sortField) + ", o.id) " +
+                    (direction.isAscending() ? ">" : "<") +
+                    " (CAST(:afterSortValue AS " + sqlType(sortField) + "), :afterOfferId)");
+            search.parameters.put("afterSortValue", afterSortValue);
+            search.parameters.put("afterOfferId", afterOfferId);
+        }
+
+        Query query = search.createRowQuery(sortField, direction, referenceTime);
+        query.setMaxResults(limit);
+        return readRows(query);
+    }
+
+    @Override
+    public Stream<OfferSearchRow> stream(OfferSearchRequest request,
+                                         Double radiusMeters,
+                                         OfferSortField sortField,
+                                         Sort.Direction direction,
+                                         Instant referenceTime,
+                                         int fetchSize) {
+        SearchSql search = new SearchSql(request, radiusMeters);
+
+        // Forward-only cursor: the driver holds fetchSize rows at a time, scalar rows are not
+        // tracked by the persistence context, so memory stays flat whatever the result size
+        NativeQuery<Object[]> query = withScalars(search.createRowQuery(sortField, direction, referenceTime));
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        return query.getResultStream().map(OfferSearchRepositoryImpl::toRow);
+    }
+
+    @Override
+    public OfferFacetCounts countFacets(OfferSearchRequest request,
+                                        Double radiusMeters,
+                                        List<BigDecimal> priceBreaks,
+                                        List<BigDecimal> ratingBands) {
+        SearchSql search = new SearchSql(request, radiusMeters);
+        List<String> counts = new ArrayList<>();
+
+        // Each facet ignores its own filter, so the counts show what selecting another value would return
+        OfferType[] offerTypes = OfferType.values();
+        for (int i = 0; i < offerTypes.length; i++) {
+            counts.add(search.facetCount(Facet.OFFER_TYPE, "o.offer_type = :facetOfferType" + i));
+            search.parameters.put("facetOfferType" + i, offerTypes[i].name());
+        }
+
+        for (int i = 0; i <= priceBreaks.size(); i++) {
+            List<String> bounds = new ArrayList<>();
+            if (i > 0) {
+                bounds.add("o.price >= :facetPrice" + (i - 1));
+            }
+            if (i < priceBreaks.size()) {
+                bounds.add("o.price < :facetPrice" + i);
+                search.parameters.put("facetPrice" + i, priceBreaks.get(i));
+            }
+            counts.add(search.facetCount(Facet.PRICE, bounds.isEmpty() ? "TRUE" : String.join(" AND ", bounds)));
+        }
+
+        for (int i = 0; i < ratingBands.size(); i++) {
+            counts.add(search.facetCount(Facet.RATING, "o.average_rating >= :facetRating" + i));
+            search.parameters.put("facetRating" + i, ratingBands.get(i));
+        }
+
+        Query query = entityManager.createNativeQuery("SELECT " + String.join(", ", counts) +
+                search.filterFromClause() + search.whereClause(EnumSet.noneOf(Facet.class)));
+        search.parameters.forEach(query::setParameter);
+        Object[] result = (Object[]) query.getSingleResult();
+
+        int column = 0;
+        Map<OfferType, Long> offerTypeCounts = new EnumMap<>(OfferType.class);
+        for (OfferType offerType : offerTypes) {
+            offerTypeCounts.put(offerType, ((Number) result[column++]).longValue());
+        }
+        List<Long> priceCounts = new ArrayList<>();
+        for (int i = 0; i <= priceBreaks.size(); i++) {
+            priceCounts.add(((Number) result[column++]).longValue());
+        }
+        List<Long> ratingCounts = new ArrayList<>();
+        for (int i = 0; i < ratingBands.size(); i++) {
+            ratingCounts.add(((Number) result[column++]).longValue());
+        }
+        return new OfferFacetCounts(offerTypeCounts, priceCounts, ratingCounts);
+    }
+
+    private List<OfferSearchRow> readRows(Query query) {
+        return withScalars(query).getResultList().stream().map(OfferSearchRepositoryImpl::toRow).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NativeQuery<Object[]> withScalars(Query query) {
+        // Explicit scalar types keep the mapping independent of the JDBC driver's defaults
+        return query.unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("title", String.class)
+                .addScalar("description", String.class)
+                .addScalar("offer_type", String.class)
+                .addScalar("gym_name", String.class)
+                .addScalar("pt_user_name", String.class)
+                .addScalar("price", BigDecimal.class)
+                .addScalar("currency", String.class)
+                .addScalar("duration_description", String.class)
+                .addScalar("image_urls", String.class)
+                .addScalar("average_rating", BigDecimal.class)
+                .addScalar("rating_count", Integer.class)
+                .addScalar("distance_km", Double.class)
+                .addScalar("location_id", Long.class)
+                .addScalar("latitude", Double.class)
+                .addScalar("longitude", Double.class)
+                .addScalar("formatted_address", String.class)
+                .addScalar("created_at", LocalDateTime.class)
+                .addScalar("sort_value", String.class);
+    }
+
+    private static OfferSearchRow toRow(Object[] columns) {
+        return new OfferSearchRow(
+                (Long) columns[0],
+                (String) columns[1],
+                (String) columns[2],
+                (String) columns[3],
+                (String) columns[4],
+                (String) columns[5],
+                (BigDecimal) columns[6],
+                (String) columns[7],
+                (String) columns[8],
+                (String) columns[9],
+                (BigDecimal) columns[10],
+                (Integer) columns[11],
+                (Double) columns[12],
+                (Long) columns[13],
+                (Double) columns[14],
+                (Double) columns[15],
+                (String) columns[16],
+                (LocalDateTime) columns[17],
+                (String) columns[18]);
+    }
+
+    private static String sqlType(OfferSortField sortField) {
+        return switch (sortField) {
+            case DISTANCE, RELEVANCE -> "double precision";
+            case PRICE, AVERAGE_RATING -> "numeric";
+            case RATING_COUNT -> "integer";
+            case CREATED_AT -> "timestamptz";
+        };
+    }
+
+    /**
+     * Filters that double as facets; facet counts are computed without their own filter.
+     */
+    private enum Facet {
+        OFFER_TYPE,
+        PRICE,
+        RATING
+    }
+
+    /**
+     * FROM/WHERE clauses and bind parameters shared by every native offer search.
+     */
+    private final class SearchSql {
+
+        private final List<String> predicates = new ArrayList<>();
+        private final Map<Facet, String> facetFilters = new EnumMap<>(Facet.class);
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+        private final boolean geo;
+        private final boolean fullText;
+
+        private SearchSql(OfferSearchRequest request, Double radiusMeters) {
+            this.geo = radiusMeters != null;
+            this.fullText = request.getSearchQuery() != null && !request.getSearchQuery().isBlank();
+            appendFilters(request);
+            if (geo) {
+                appendRadius(request, radiusMeters);
+            }
+        }
+
+        /**
+         * Only the joins the predicates need; used for counting.
+         */
+        private String filterFromClause() {
+            return geo
+                    ? " FROM (" + NEARBY_OFFERS + ") nearby JOIN offers o ON o.id = nearby.offer_id"
+                    : " FROM offers o";
+        }
+
+        private String projectionFromClause() {
+            return geo
+                    ? filterFromClause() + " JOIN locations l ON l.id = nearby.location_id" + OWNER_JOINS
+                    : filterFromClause() + OWNER_JOINS + OWNER_LOCATION_JOIN;
+        }
+
+        private String whereClause() {
+            return whereClause(EnumSet.allOf(Facet.class));
+        }
+
+        private String whereClause(Set<Facet> facets) {
+            List<String> all = new ArrayList<>(predicates);
+            facetFilters.forEach((facet, filter) -> {
+                if (facets.contains(facet)) {
+                    all.add(filter);
+                }
+            });
+            return " WHERE " + String.join(" AND ", all);
+        }
+
+        /**
+         * Counts the rows matching {@code bucket} under every filter except the facet's own.
+         */
+        private String facetCount(Facet facet, String bucket) {
+            List<String> conditions = new ArrayList<>();
+            facetFilters.forEach((other, filter) -> {
+                if (other != facet) {
+                    conditions.add(filter);
+                }
+            });
+            conditions.add(bucket);
+            return "COUNT(*) FILTER (WHERE " + String.join(" AND ", conditions) + ")";
+        }
+
+        private Query createRowQuery(OfferSortField sortField, Sort.Direction direction, Instant referenceTime) {
+            if (sortField == OfferSortField.DISTANCE && !geo) {
+                throw new IllegalArgumentException("Sorting by distance requires latitude and longitude");
+            }
+            String dir = direction.isAscending() ? "ASC" : "DESC";
+            String order = orderExpression(sortField);
+
+            Query query = entityManager.createNativeQuery(
+                    "SELECT " + PROJECTION + ", " +
+                    (geo ? DISTANCE_KM : "CAST(NULL AS double precision)") + " AS distance_km, " +
+                    "CAST(" + order + " AS text) AS sort_value" +
+                    projectionFromClause() + whereClause() +
+                    " ORDER BY " + order + " " + dir + ", o.id " + dir);
+            parameters.forEach(query::setParameter);
+            if (sortField == OfferSortField.RELEVANCE) {
+                bindRanking(query, referenceTime);
+            }
+            return query;
+        }
+
+        private String orderExpression(OfferSortField sortField) {
+            return switch (sortField) {
+                case RELEVANCE -> relevanceExpression();
+                // Geography KNN ordering agrees with the sphere distance returned as distance_km
+                case DISTANCE -> "(l.geog <-> " + SEARCH_POINT + ")";
+                case PRICE -> "o.price";
+                case AVERAGE_RATING -> "o.average_rating";
+                case RATING_COUNT -> "o.rating_count";
+                case CREATED_AT -> "o.created_at";
+            };
+        }
+
+        /**
+         * Weighted sum of signals, each scaled to [0, 1]: text rank (text searches only),
+         * distance decay (geo searches only), confidence-adjusted rating and recency.
+         */
+        private String relevanceExpression() {
+            List<String> signals = new ArrayList<>();
+            if (fullText) {
+                // Normalization 32 maps the rank to rank / (rank + 1)
+                signals.add(":textWeight * ts_rank_cd(o.search_vector, offer_search_query(:searchQuery), 32)");
+            }
+            if (geo) {
+                signals.add(":distanceWeight * exp(-(" + DISTANCE_KM + ") / :distanceScaleKm)");
+            }
+            signals.add(":ratingWeight * " + BAYESIAN_RATING + " / 5");
+            signals.add(":recencyWeight * power(CAST(0.5 AS double precision), " +
+                    "GREATEST(EXTRACT(EPOCH FROM CAST(:referenceTime AS timestamptz) - o.created_at), 0) " +
+                    "/ 86400 / :recencyHalfLifeDays)");
+            return "CAST(" + String.join(" + ", signals) + " AS double precision)";
+        }
+
+        private void bindRanking(Query query, Instant referenceTime) {
+            SearchProperties.Ranking ranking = searchProperties.getRanking();
+            if (fullText) {
+                query.setParameter("textWeight", ranking.getTextWeight());
+            }
+            if (geo) {
+                query.setParameter("distanceWeight", ranking.getDistanceWeight());
+                query.setParameter("distanceScaleKm", ranking.getDistanceScaleKm());
+            }
+            query.setParameter("ratingWeight", ranking.getRatingWeight());
+            query.setParameter("ratingPriorCount", ranking.getRatingPriorCount());
+            query.setParameter("ratingPriorMean", ranking.getRatingPriorMean());
+            query.setParameter("recencyWeight", ranking.getRecencyWeight());
+            query.setParameter("recencyHalfLifeDays", ranking.getRecencyHalfLifeDays());
+            // Fixed per scroll so the scores behind a cursor do not drift between pages
+            query.setParameter("referenceTime", referenceTime);
+        }
+
+        private void appendFilters(OfferSearchRequest request) {
+            // Inlined rather than bound so the planner can match the partial indexes of V7
+            // (WHERE active AND status = 'APPROVED') even once it switches to a generic plan;
+            // both values come from typed fields, never from raw request text
+            boolean active = request.getActive() != null ? request.getActive() : true;
+            OfferStatus status = request.getStatus() != null ? request.getStatus() : OfferStatus.APPROVED;
+            predicates.add("o.active = " + active);
+            predicates.add("o.status = '" + status.name() + "'");
+
+            if (request.getOfferType() != null) {
+                facetFilters.put(Facet.OFFER_TYPE, "o.offer_type = :offerType");
+                parameters.put("offerType", request.getOfferType().name());
+            }
+
+            List<String> priceBounds = new ArrayList<>();
+            if (request.getMinPrice() != null) {
+                priceBounds.add("o.price >= :minPrice");
+                parameters.put("minPrice", request.getMinPrice());
+            }
+            if (request.getMaxPrice() != null) {
+                priceBounds.add("o.price <= :maxPrice");
+                parameters.put("maxPrice", request.getMaxPrice());
+            }
+            if (!priceBounds.isEmpty()) {
+                facetFilters.put(Facet.PRICE, String.join(" AND ", priceBounds));
+            }
+
+            if (request.getMinRating() != null) {
+                facetFilters.put(Facet.RATING, "o.average_rating >= :minRating");
+                parameters.put("minRating", request.getMinRating());
+            }
+
+            if (request.getGymId() != null) {
+                predicates.add("o.gym_id = :gymId");
+                parameters.put("gymId", request.getGymId());
+            }
+
+            if (request.getPtUserId() != null) {
+                predicates.add("o.pt_user_id = :ptUserId");
+                parameters.put("ptUserId", request.getPtUserId());
+            }
+
+            if (fullText) {
+                // GIN-indexed match on the accent-folded document maintained by V4
+                predicates.add("o.search_vector @@ offer_search_query(:searchQuery)");
+                parameters.put("searchQuery", request.getSearchQuery().trim());
+            }
+        }
+
+        private void appendRadius(OfferSearchRequest request, double radiusMeters) {
+            // Used by both NEARBY_OFFERS branches
+            parameters.put("latitude", request.getLatitude());
+            parameters.put("longitude", request.getLongitude());
+            parameters.put("radiusMeters", radiusMeters);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.easybody.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an offer search result, selected column by column
+ * instead of hydrating {@link com.easybody.model.entity.Offer} entities.
+ * {@code sortValue} is the text form of the ordering key and is what keyset
+ * cursors seek from.
+ */
+public record OfferSearchRow(
+        Long id,
+        String title,
+        String description,
+        String offerType,
+        String gymName,
+        String ptUserName,
+        BigDecimal price,
+        String currency,
+        String durationDescription,
+        String imageUrls,
+        BigDecimal averageRating,
+        Integer ratingCount,
+        Double distanceKm,
+        Long locationId,
+        Double latitude,
+        Double longitude,
+        String formattedAddress,
+        LocalDateTime createdAt,
+        String sortValue) {
+}
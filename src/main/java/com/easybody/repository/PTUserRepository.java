@@ -1,13 +1,21 @@
 package com.easybody.repository;
 
 import com.easybody.model.entity.PTUser;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PTUserRepository extends JpaRepository<PTUser, Long> {
@@ -16,17 +24,48 @@ public interface PTUserRepository extends JpaRepository<PTUser, Long> {
 
     Optional<PTUser> findByIdAndActiveTrue(Long id);
 
-    List<PTUser> findByActiveTrue();
+    @EntityGraph(attributePaths = {"user", "location"})
+    Optional<PTUser> findDetailById(Long id);
 
-    @Query(value = "SELECT pt.* FROM pt_users pt " +
-           "JOIN locations l ON pt.location_id = l.id " +
-           "WHERE pt.active = true AND " +
-           "ST_DWithin(l.coordinates::geography, " +
-           "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, " +
-           ":radiusMeters)",
+    @EntityGraph(attributePaths = {"user", "location"})
+    Page<PTUser> findByActiveTrue(Pageable pageable);
+
+    // Read-only and fetched in chunks so exports hold one chunk at a time
+    @EntityGraph(attributePaths = {"user", "location"})
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<PTUser> streamByActiveTrueOrderByIdAsc();
+
+    String SEARCH_POINT = "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography";
+
+    String NEARBY_FILTER = "FROM pt_users pt " +
+            "JOIN locations l ON l.id = pt.location_id " +
+            "WHERE pt.active = true " +
+            "AND ST_DWithin(l.geog, " + SEARCH_POINT + ", :radiusMeters, false)";
+
+    // Nearest first through the KNN operator on idx_locations_geog; the radius bounds the walk
+    @Query(value = "SELECT pt.id AS id, ST_Distance(l.geog, " + SEARCH_POINT + ", false) / 1000 AS distanceKm " +
+           NEARBY_FILTER + " ORDER BY l.geog <-> " + SEARCH_POINT + ", pt.id",
+           countQuery = "SELECT COUNT(*) " + NEARBY_FILTER,
            nativeQuery = true)
-    List<PTUser> findPTUsersNearLocation(@Param("latitude") Double latitude,
-                                          @Param("longitude") Double longitude,
-                                          @Param("radiusMeters") Double radiusMeters);
+    Page<NearbyMatch> findPTUsersNearLocation(@Param("latitude") Double latitude,
+                                              @Param("longitude") Double longitude,
+                                              @Param("radiusMeters") Double radiusMeters,
+                                              Pageable pageable);
+
+    // Best rated first, then nearest; the radius bounds the rows to sort
+    @Query(value = "SELECT pt.id AS id, ST_Distance(l.geog, " + SEARCH_POINT + ", false) / 1000 AS distanceKm " +
+           NEARBY_FILTER + " ORDER BY pt.average_rating DESC, pt.rating_count DESC, l.geog <-> " + SEARCH_POINT + ", pt.id",
+           countQuery = "SELECT COUNT(*) " + NEARBY_FILTER,
+           nativeQuery = true)
+    Page<NearbyMatch> findPTUsersNearLocationByRating(@Param("latitude") Double latitude,
+                                                      @Param("longitude") Double longitude,
+                                                      @Param("radiusMeters") Double radiusMeters,
+                                                      Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "location"})
+    List<PTUser> findByIdIn(Collection<Long> ids);
 }
 
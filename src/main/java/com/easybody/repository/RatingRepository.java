@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,6 +15,15 @@ import java.util.Optional;
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
 
+    // Selecting from offers writes nothing for a missing offer instead of failing its foreign key
+    String INSERT_RATING = "INSERT INTO ratings (offer_id, client_user_id, rating, comment) " +
+            "SELECT o.id, :clientUserId, :rating, CAST(:comment AS varchar) FROM offers o WHERE o.id = :offerId " +
+            "ON CONFLICT (offer_id, client_user_id) ";
+
+    String RETURN_WRITTEN = "RETURNING id, offer_id, created_at) " +
+            "SELECT w.id AS id, o.title AS offerTitle, CAST(w.created_at AS timestamp) AS createdAt " +
+            "FROM written w JOIN offers o ON o.id = w.offer_id";
+
     List<Rating> findByOfferId(Long offerId);
 
     Page<Rating> findByOfferId(Long offerId, Pageable pageable);
@@ -22,9 +32,27 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
 
     Optional<Rating> findByOfferIdAndClientUserId(Long offerId, Long clientUserId);
 
-    @Query("SELECT AVG(r.rating) FROM Rating r WHERE r.offer.id = :offerId")
-    Double calculateAverageRating(@Param("offerId") Long offerId);
-
-    Long countByOfferId(Long offerId);
+    /**
+     * Inserts the client's rating of the offer unless they already rated it. Empty when the
+     * rating already exists or the offer does not.
+     */
+    @Transactional
+    @Query(value = "WITH written AS (" + INSERT_RATING + "DO NOTHING " + RETURN_WRITTEN, nativeQuery = true)
+    Optional<RatingWrite> insertIfAbsent(@Param("offerId") Long offerId,
+                                         @Param("clientUserId") Long clientUserId,
+                                         @Param("rating") Integer rating,
+                                         @Param("comment") String comment);
+
+    /**
+     * Inserts the client's rating of the offer, or replaces its stars and comment if they
+     * already rated it. Empty when the offer does not exist.
+     */
+    @Transactional
+    @Query(value = "WITH written AS (" + INSERT_RATING
+            + "DO UPDATE SET rating = EXCLUDED.rating, comment = EXCLUDED.comment " + RETURN_WRITTEN,
+           nativeQuery = true)
+    Optional<RatingWrite> upsert(@Param("offerId") Long offerId,
+                                 @Param("clientUserId") Long clientUserId,
+                                 @Param("rating") Integer rating,
+                                 @Param("comment") String comment);
 }
-
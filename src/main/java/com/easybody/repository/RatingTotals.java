@@ -0,0 +1,14 @@
+package com.easybody.repository;
+
+/**
+ * Rating count, sum of ratings and ratings per star over a set of offers; the sums over
+ * offers are null when there are none.
+ */
+public record RatingTotals(Long ratingCount,
+                           Long ratingSum,
+                           Long rating1Count,
+                           Long rating2Count,
+                           Long rating3Count,
+                           Long rating4Count,
+                           Long rating5Count) {
+}
@@ -0,0 +1,15 @@
+package com.easybody.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row written by a single-statement rating insert or upsert, with the rated offer's title.
+ */
+public interface RatingWrite {
+
+    Long getId();
+
+    String getOfferTitle();
+
+    LocalDateTime getCreatedAt();
+}
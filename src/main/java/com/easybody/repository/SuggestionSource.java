@@ -0,0 +1,8 @@
+package com.easybody.repository;
+
+/**
+ * What the typeahead index needs from an offer or gym: its display text, a line of
+ * context (the owner for offers, the city for gyms) and the rating it ranks by.
+ */
+public record SuggestionSource(Long id, String text, String context, Double rating) {
+}
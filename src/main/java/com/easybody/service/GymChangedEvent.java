@@ -0,0 +1,7 @@
+package com.easybody.service;
+
+/**
+ * Published when a gym is registered or its profile changes. Listeners run after the change commits.
+ */
+public record GymChangedEvent(Long gymId) {
+}
@@ -0,0 +1,159 @@
+package com.easybody.service;
+
+import com.easybody.config.GymOverviewProperties;
+import com.easybody.dto.response.GymOverviewResponse;
+import com.easybody.dto.response.GymPTAssociationResponse;
+import com.easybody.dto.response.GymResponse;
+import com.easybody.dto.response.OfferResponse;
+import com.easybody.dto.response.RatingSummaryResponse;
+import com.easybody.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Assembles a gym page from its parts, each loaded concurrently on a virtual thread
+ * with a query of its own. The gym itself is required: if it misses the deadline the
+ * request fails with a {@link ServiceUnavailableException}. Any other part that fails or
+ * misses the deadline is left out and named in {@code unavailable}.
+ * <p>
+ * Late parts are abandoned, never interrupted: interrupting a thread blocked in a JDBC
+ * read closes its pooled connection. Their queries are bounded by a statement timeout
+ * instead, and a semaphore bounds how many parts hold a connection at once.
+ */
+@Service
+@Slf4j
+public class GymOverviewService {
+
+    private final GymService gymService;
+    private final OfferService offerService;
+    private final GymPTAssociationService associationService;
+    private final RatingService ratingService;
+    private final GymOverviewProperties overviewProperties;
+    private final TransactionTemplate partTransaction;
+    private final Semaphore connectionSlots;
+
+    // Waiting for a slot only parks a virtual thread; the semaphore, not this executor, bounds the work
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public GymOverviewService(GymService gymService,
+                              OfferService offerService,
+                              GymPTAssociationService associationService,
+                              RatingService ratingService,
+                              GymOverviewProperties overviewProperties,
+                              PlatformTransactionManager transactionManager) {
+        this.gymService = gymService;
+        this.offerService = offerService;
+        this.associationService = associationService;
+        this.ratingService = ratingService;
+        this.overviewProperties = overviewProperties;
+        this.connectionSlots = new Semaphore(overviewProperties.getMaxConcurrentParts());
+
+        // Each part's queries inherit the remaining transaction time as their JDBC query timeout,
+        // which has whole-second granularity
+        this.partTransaction = new TransactionTemplate(transactionManager);
+        this.partTransaction.setReadOnly(true);
+        this.partTransaction.setTimeout((int) Math.max(1, (overviewProperties.getTimeout().toMillis() + 999) / 1000));
+    }
+
+    public GymOverviewResponse getOverview(Long gymId) {
+        long deadline = System.nanoTime() + overviewProperties.getTimeout().toNanos();
+
+        Future<GymResponse> gym = submit(deadline, () -> gymService.getGymById(gymId));
+        Future<List<OfferResponse>> offers = submit(deadline,
+                () -> offerService.getLatestGymOffers(gymId, overviewProperties.getOfferLimit()));
+        Future<List<GymPTAssociationResponse>> trainers = submit(deadline,
+                () -> associationService.getApprovedAssociationsByGymId(gymId));
+        Future<RatingSummaryResponse> ratings = submit(deadline, () -> ratingService.getGymRatingSummary(gymId));
+
+        GymResponse gymResponse;
+        try {
+            gymResponse = required(gymId, gym, deadline);
+        } catch (RuntimeException ex) {
+            // No page without the gym; parts that have not started yet never will
+            offers.cancel(false);
+            trainers.cancel(false);
+            ratings.cancel(false);
+            throw ex;
+        }
+
+        List<String> unavailable = new ArrayList<>();
+        return GymOverviewResponse.builder()
+                .gym(gymResponse)
+                .offers(optional(gymId, "offers", offers, deadline, unavailable))
+                .personalTrainers(optional(gymId, "personalTrainers", trainers, deadline, unavailable))
+                .ratingSummary(optional(gymId, "ratingSummary", ratings, deadline, unavailable))
+                .unavailable(unavailable)
+                .build();
+    }
+
+    private <T> Future<T> submit(long deadline, Supplier<T> part) {
+        return executor.submit(() -> {
+            if (!connectionSlots.tryAcquire(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("No connection slot free before the deadline");
+            }
+            try {
+                return partTransaction.execute(status -> part.get());
+            } finally {
+                connectionSlots.release();
+            }
+        });
+    }
+
+    private <T> T required(Long gymId, Future<T> part, long deadline) {
+        try {
+            return part.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            // ResourceNotFoundException and the like keep their status
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ServiceUnavailableException("Could not load gym " + gymId, ex.getCause());
+        } catch (TimeoutException ex) {
+            part.cancel(false);
+            throw new ServiceUnavailableException("Gym " + gymId + " did not load in time");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            part.cancel(false);
+            throw new ServiceUnavailableException("Interrupted while loading gym " + gymId, ex);
+        }
+    }
+
+    private <T> T optional(Long gymId, String name, Future<T> part, long deadline, List<String> unavailable) {
+        try {
+            return part.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            log.warn("Gym {} overview part {} failed", gymId, name, ex.getCause());
+        } catch (TimeoutException ex) {
+            log.warn("Gym {} overview part {} did not finish in time", gymId, name);
+            part.cancel(false);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            part.cancel(false);
+        }
+        unavailable.add(name);
+        return null;
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(deadline - System.nanoTime(), 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -103,6 +103,16 @@ public class GymPTAssociationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Approved PTs of a gym, loaded with their users in one query.
+     */
+    @Transactional(readOnly = true)
+    public List<GymPTAssociationResponse> getApprovedAssociationsByGymId(Long gymId) {
+        return associationRepository.findWithPtUserByGymIdAndApprovalStatus(gymId, ApprovalStatus.APPROVED).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
     public List<GymPTAssociationResponse> getAssociationsByPTUserId(Long ptUserId) {
         return associationRepository.findByPtUserId(ptUserId).stream()
                 .map(this::mapToResponse)
@@ -1,23 +1,36 @@
 package com.easybody.service;
 
+import com.easybody.config.CacheConfig;
+import com.easybody.config.PaginationProperties;
+import com.easybody.config.SearchProperties;
 import com.easybody.dto.request.GymRegistrationRequest;
 import com.easybody.dto.request.GymUpdateRequest;
 import com.easybody.dto.response.GymResponse;
 import com.easybody.dto.response.LocationResponse;
+import com.easybody.dto.response.PageResponse;
 import com.easybody.exception.ResourceNotFoundException;
 import com.easybody.model.entity.Gym;
 import com.easybody.model.entity.Location;
+import com.easybody.model.enums.NearbySortField;
 import com.easybody.repository.GymRepository;
+import com.easybody.repository.NearbyMatch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,6 +39,10 @@ import java.util.stream.Collectors;
 public class GymService {
 
     private final GymRepository gymRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaginationProperties paginationProperties;
+    private final SearchProperties searchProperties;
+    private final NdjsonExporter ndjsonExporter;
     private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
 
     @Transactional
@@ -53,6 +70,7 @@ public class GymService {
 
         gym = gymRepository.save(gym);
         log.info("Gym registered successfully with id: {}", gym.getId());
+        eventPublisher.publishEvent(new GymChangedEvent(gym.getId()));
 
         return mapToResponse(gym);
     }
@@ -89,33 +107,71 @@ public class GymService {
 
         gym = gymRepository.save(gym);
         log.info("Gym updated successfully");
+        eventPublisher.publishEvent(new GymChangedEvent(gym.getId()));
 
         return mapToResponse(gym);
     }
 
+    @Cacheable(cacheNames = CacheConfig.GYM_DETAIL_CACHE, key = "#id")
+    @Transactional(readOnly = true)
     public GymResponse getGymById(Long id) {
-        Gym gym = gymRepository.findById(id)
+        Gym gym = gymRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Gym not found with id: " + id));
         return mapToResponse(gym);
     }
 
-    public List<GymResponse> getAllActiveGyms() {
-        return gymRepository.findByActiveTrue().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PageResponse<GymResponse> getActiveGyms(Integer page, Integer size) {
+        Pageable pageable = paginationProperties.pageable(page, size, Sort.by("id"));
+        return mapToPageResponse(gymRepository.findByActiveTrue(pageable).map(this::mapToResponse));
     }
 
-    public List<GymResponse> searchGyms(String searchTerm) {
-        return gymRepository.searchGyms(searchTerm).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PageResponse<GymResponse> searchGyms(String searchTerm, Integer page, Integer size) {
+        if (searchTerm == null || searchTerm.isBlank()) {
+            return getActiveGyms(page, size);
+        }
+        String term = searchTerm.trim();
+        // The native query ranks by similarity itself
+        Pageable pageable = paginationProperties.pageable(page, size, Sort.unsorted());
+        return mapToPageResponse(gymRepository.searchGyms(term, "%" + escapeLike(term) + "%", pageable)
+                .map(this::mapToResponse));
+    }
+
+    /**
+     * Active gyms within {@code radiusKm} (default and upper bound from {@code app.search}),
+     * nearest first or, with {@code sortBy=rating}, best rated first. Each comes with its distance.
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<GymResponse> findGymsNearLocation(Double latitude, Double longitude, Double radiusKm,
+                                                          String sortBy, Integer page, Integer size) {
+        double radiusMeters = searchProperties.radiusMeters(radiusKm);
+        NearbySortField sort = sortBy != null ? NearbySortField.fromProperty(sortBy) : NearbySortField.DISTANCE;
+        // The native queries order by themselves
+        Pageable pageable = paginationProperties.pageable(page, size, Sort.unsorted());
+        Page<NearbyMatch> matches = sort == NearbySortField.RATING
+                ? gymRepository.findGymsNearLocationByRating(latitude, longitude, radiusMeters, pageable)
+                : gymRepository.findGymsNearLocation(latitude, longitude, radiusMeters, pageable);
+
+        Map<Long, Gym> gymsById = gymRepository.findByIdIn(matches.map(NearbyMatch::getId).getContent()).stream()
+                .collect(Collectors.toMap(Gym::getId, Function.identity()));
+        return mapToPageResponse(matches.map(match -> {
+            GymResponse response = mapToResponse(gymsById.get(match.getId()));
+            response.setDistanceKm(match.getDistanceKm());
+            return response;
+        }));
+    }
+
+    /**
+     * Every active gym as NDJSON, read through a database cursor.
+     */
+    public StreamingResponseBody exportActiveGyms() {
+        log.info("Exporting active gyms");
+        return ndjsonExporter.export("gyms", gymRepository::streamByActiveTrueOrderByIdAsc, this::mapToResponse);
     }
 
-    public List<GymResponse> findGymsNearLocation(Double latitude, Double longitude, Double radiusKm) {
-        Double radiusMeters = radiusKm * 1000;
-        return gymRepository.findGymsNearLocation(latitude, longitude, radiusMeters).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     private Location createLocation(Double latitude, Double longitude) {
@@ -131,6 +187,18 @@ public class GymService {
         return geometryFactory.createPoint(new Coordinate(longitude, latitude));
     }
 
+    private PageResponse<GymResponse> mapToPageResponse(Page<GymResponse> page) {
+        return PageResponse.<GymResponse>builder()
+                .content(page.getContent())
+                .pageNumber(page.getNumber())
+                .pageSize(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .first(page.isFirst())
+                .last(page.isLast())
+                .build();
+    }
+
     private GymResponse mapToResponse(Gym gym) {
         return GymResponse.builder()
                 .id(gym.getId())
@@ -146,6 +214,9 @@ public class GymService {
                 .email(gym.getEmail())
                 .website(gym.getWebsite())
                 .location(gym.getLocation() != null ? mapLocationToResponse(gym.getLocation()) : null)
+                .averageRating(gym.getAverageRating())
+                .ratingCount(gym.getRatingCount())
+                .ratedOfferCount(gym.getRatedOfferCount())
                 .active(gym.getActive())
                 .verified(gym.getVerified())
                 .createdAt(gym.getCreatedAt())
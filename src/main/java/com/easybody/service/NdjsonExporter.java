@@ -0,0 +1,58 @@
+package com.easybody.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository stream as newline-delimited JSON, one mapped element per line,
+ * without holding the result in memory.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NdjsonExporter {
+
+    private static final int CLEAR_INTERVAL = 500;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    /**
+     * {@code source} is opened when the response body is written, on the async request
+     * thread and inside a transaction of its own, so a database cursor can back it.
+     */
+    public <T> StreamingResponseBody export(String name, Supplier<Stream<T>> source, Function<T, ?> mapper) {
+        return out -> transactionTemplate.executeWithoutResult(status -> {
+            long count = 0;
+            try (Stream<T> rows = source.get()) {
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(mapper.apply(iterator.next())));
+                    out.write('\n');
+                    // Streamed entities would otherwise pile up in the persistence context
+                    if (++count % CLEAR_INTERVAL == 0) {
+                        entityManager.clear();
+                    }
+                }
+                out.flush();
+            } catch (IOException ex) {
+                // Client went away; rolling back just releases the cursor
+                throw new UncheckedIOException(ex);
+            }
+            log.info("Exported {} {}", count, name);
+        });
+    }
+}
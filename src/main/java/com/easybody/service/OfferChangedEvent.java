@@ -0,0 +1,9 @@
+package com.easybody.service;
+
+/**
+ * Published whenever an offer is created or its content or moderation status changes.
+ * Rating changes are published as {@link OfferRatingsChangedEvent}s. Listeners run after
+ * the change commits.
+ */
+public record OfferChangedEvent(Long offerId) {
+}
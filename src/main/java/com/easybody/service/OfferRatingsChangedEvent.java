@@ -0,0 +1,10 @@
+package com.easybody.service;
+
+import java.util.Collection;
+
+/**
+ * Published when the rating aggregates of one or more offers change, without any other
+ * change to them. Listeners run after the change commits.
+ */
+public record OfferRatingsChangedEvent(Collection<Long> offerIds) {
+}
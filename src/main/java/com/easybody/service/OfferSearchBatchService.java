@@ -0,0 +1,171 @@
+package com.easybody.service;
+
+import com.easybody.config.SearchProperties;
+import com.easybody.dto.request.OfferSearchBatchRequest;
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.dto.response.OfferSearchBatchResponse;
+import com.easybody.dto.response.OfferSearchBatchResult;
+import com.easybody.dto.response.OfferSearchResponse;
+import com.easybody.dto.response.PageResponse;
+import com.easybody.model.enums.BatchResultStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the searches of a batch request concurrently on a bounded pool, all against one
+ * deadline. A failing, rejected or late search only affects its own result.
+ * <p>
+ * Late searches are abandoned, never interrupted: interrupting a thread blocked in a JDBC
+ * read closes its pooled connection. Each search runs in a read-only transaction timed out
+ * at the deadline instead, so its queries carry a statement timeout.
+ */
+@Service
+@Slf4j
+public class OfferSearchBatchService {
+
+    private final OfferService offerService;
+    private final SearchProperties searchProperties;
+    private final PlatformTransactionManager transactionManager;
+
+    // Private to batch searches rather than a bean: an Executor bean would replace
+    // Boot's applicationTaskExecutor, which async MVC requests run on
+    private final ThreadPoolTaskExecutor executor;
+
+    public OfferSearchBatchService(OfferService offerService,
+                                   SearchProperties searchProperties,
+                                   PlatformTransactionManager transactionManager) {
+        this.offerService = offerService;
+        this.searchProperties = searchProperties;
+        this.transactionManager = transactionManager;
+
+        SearchProperties.Batch batch = searchProperties.getBatch();
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(batch.getThreads());
+        this.executor.setMaxPoolSize(batch.getThreads());
+        this.executor.setQueueCapacity(batch.getQueueCapacity());
+        this.executor.setThreadNamePrefix("search-batch-");
+        this.executor.initialize();
+    }
+
+    public OfferSearchBatchResponse search(OfferSearchBatchRequest request) {
+        List<OfferSearchRequest> searches = request.getSearches();
+        SearchProperties.Batch batch = searchProperties.getBatch();
+        if (searches == null || searches.isEmpty()) {
+            throw new IllegalArgumentException("At least one search is required");
+        }
+        if (searches.size() > batch.getMaxSearches()) {
+            throw new IllegalArgumentException("At most " + batch.getMaxSearches() + " searches are allowed per batch");
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + batch.getTimeout().toNanos();
+
+        List<Future<OfferSearchBatchResult>> futures = new ArrayList<>();
+        for (int i = 0; i < searches.size(); i++) {
+            int index = i;
+            // OfferService.searchOffers clamps the page size like for a single search
+            OfferSearchRequest search = searches.get(i);
+            try {
+                futures.add(executor.submit(() -> run(index, search, deadline)));
+            } catch (TaskRejectedException ex) {
+                futures.add(null);
+            }
+        }
+
+        List<OfferSearchBatchResult> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(await(i, futures.get(i), deadline));
+        }
+
+        return OfferSearchBatchResponse.builder()
+                .results(results)
+                .elapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+    }
+
+    private OfferSearchBatchResult run(int index, OfferSearchRequest search, long deadline) {
+        long start = System.nanoTime();
+        long remaining = deadline - start;
+        if (remaining <= 0) {
+            // Queued past the deadline; its result is no longer awaited
+            return result(index, BatchResultStatus.TIMEOUT, start).error("Search did not finish in time").build();
+        }
+        try {
+            PageResponse<OfferSearchResponse> page = searchTransaction(remaining)
+                    .execute(status -> offerService.searchOffers(search));
+            return result(index, BatchResultStatus.OK, start).page(page).build();
+        } catch (TransactionTimedOutException | QueryTimeoutException ex) {
+            return result(index, BatchResultStatus.TIMEOUT, start).error("Search did not finish in time").build();
+        } catch (IllegalArgumentException ex) {
+            return result(index, BatchResultStatus.ERROR, start).error(ex.getMessage()).build();
+        } catch (RuntimeException ex) {
+            log.error("Batch search {} failed", index, ex);
+            return result(index, BatchResultStatus.ERROR, start).error("Search failed").build();
+        }
+    }
+
+    /**
+     * Read-only transaction whose queries inherit what is left of the deadline as their JDBC
+     * query timeout. That timeout has whole-second granularity, so it is rounded up: a late
+     * search can hold its thread and connection for up to a second past the deadline.
+     */
+    private TransactionTemplate searchTransaction(long remainingNanos) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout((int) Math.max(1, (TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 999) / 1000));
+        return transaction;
+    }
+
+    private OfferSearchBatchResult await(int index, Future<OfferSearchBatchResult> future, long deadline) {
+        if (future == null) {
+            return OfferSearchBatchResult.builder()
+                    .index(index)
+                    .status(BatchResultStatus.REJECTED)
+                    .error("Too many concurrent searches, retry later")
+                    .build();
+        }
+        try {
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(false);
+            return OfferSearchBatchResult.builder()
+                    .index(index)
+                    .status(BatchResultStatus.TIMEOUT)
+                    .error("Search did not finish in time")
+                    .build();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for batch searches", ex);
+        } catch (ExecutionException ex) {
+            // run() catches everything it can report; anything else is a bug
+            throw new IllegalStateException("Batch search " + index + " failed", ex.getCause());
+        }
+    }
+
+    private static OfferSearchBatchResult.OfferSearchBatchResultBuilder result(int index, BatchResultStatus status, long start) {
+        return OfferSearchBatchResult.builder()
+                .index(index)
+                .status(status)
+                .elapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+package com.easybody.service;
+
+import com.easybody.config.CacheConfig;
+import com.easybody.config.SearchProperties;
+import com.easybody.dto.response.OfferSearchResponse;
+import com.easybody.dto.response.PageResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches offset search pages and drops them once an offer is created, edited or moderated.
+ * Rating changes only drop the pages that depend on ratings (see
+ * {@link OfferSearchCacheKey#dependsOnRatings()}), at most once per
+ * {@code app.search.cache.rating-invalidation-interval}: ratings arrive in bursts and
+ * dropping on each one would keep those pages uncached. Other pages show new rating
+ * values within the TTL.
+ * Concurrent identical misses share one query through {@link SingleFlight}, outside
+ * Caffeine's own locking; its {@code request.coalescing{name=offerSearch}} counters only
+ * see misses, so cache hits are not reported as executed searches.
+ */
+@Component
+@Slf4j
+public class OfferSearchCache {
+
+    private final CaffeineCache cache;
+    private final SingleFlight<OfferSearchCacheKey, PageResponse<OfferSearchResponse>> inFlight;
+    private final long ratingInvalidationIntervalNanos;
+
+    // Bumped on every change, so a page that was being loaded while the change
+    // committed is stored under a key no later lookup will use
+    private final AtomicLong generation = new AtomicLong();
+
+    // Same for rating-dependent pages and rating changes
+    private final AtomicLong ratingGeneration = new AtomicLong();
+
+    // Ratings changed since rating-dependent pages were last dropped
+    private final AtomicBoolean ratingsChanged = new AtomicBoolean();
+    private final AtomicLong lastRatingInvalidation;
+
+    public OfferSearchCache(CacheManager cacheManager, SearchProperties searchProperties, MeterRegistry meterRegistry) {
+        this.cache = (CaffeineCache) cacheManager.getCache(CacheConfig.OFFER_SEARCH_CACHE);
+        this.inFlight = new SingleFlight<>("offerSearch", meterRegistry);
+        this.ratingInvalidationIntervalNanos = searchProperties.getCache().getRatingInvalidationInterval().toNanos();
+        // The first rating change drops right away
+        this.lastRatingInvalidation = new AtomicLong(System.nanoTime() - ratingInvalidationIntervalNanos);
+    }
+
+    PageResponse<OfferSearchResponse> get(KeyFactory key, Supplier<PageResponse<OfferSearchResponse>> loader) {
+        // A rating change held back by the interval is applied by the first lookup after it
+        invalidateRatingPagesIfDue();
+        OfferSearchCacheKey cacheKey = key.create(generation.get(), ratingGeneration.get());
+        Cache.ValueWrapper cached = cache.get(cacheKey);
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            PageResponse<OfferSearchResponse> page = (PageResponse<OfferSearchResponse>) cached.get();
+            return page;
+        }
+        // Not cache.get(key, loader): Caffeine would run the query while holding a lock
+        // shared with other keys. The search's own exception reaches every waiter as is.
+        return inFlight.execute(cacheKey, () -> {
+            PageResponse<OfferSearchResponse> page = loader.get();
+            cache.put(cacheKey, page);
+            return page;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOfferChanged(OfferChangedEvent event) {
+        log.debug("Offer {} changed, invalidating cached search results", event.offerId());
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOfferRatingsChanged(OfferRatingsChangedEvent event) {
+        ratingsChanged.set(true);
+        invalidateRatingPagesIfDue();
+    }
+
+    private void invalidateRatingPagesIfDue() {
+        if (!ratingsChanged.get()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastRatingInvalidation.get();
+        if (now - last < ratingInvalidationIntervalNanos || !lastRatingInvalidation.compareAndSet(last, now)) {
+            return;
+        }
+        // Cleared before the bump: a change landing in between is dropped again next time, never missed
+        ratingsChanged.set(false);
+        ratingGeneration.incrementAndGet();
+        cache.getNativeCache().asMap().keySet()
+                .removeIf(key -> key instanceof OfferSearchCacheKey searchKey && searchKey.dependsOnRatings());
+        log.debug("Ratings changed, invalidated rating-dependent search results");
+    }
+
+    /**
+     * Builds the cache key of a search from the current generations.
+     */
+    @FunctionalInterface
+    interface KeyFactory {
+
+        OfferSearchCacheKey create(long generation, long ratingGeneration);
+    }
+}
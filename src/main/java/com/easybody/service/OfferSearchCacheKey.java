@@ -0,0 +1,100 @@
+package com.easybody.service;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.OfferType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Normalized form of an {@link OfferSearchRequest}: defaults are resolved and
+ * equivalent spellings collapsed, so requests that return the same page share
+ * a cache entry. {@code generation} ties the entry to the offer data it was
+ * read from, {@code ratingGeneration} to the ratings for pages that depend on
+ * them (always 0 for the others).
+ */
+record OfferSearchCacheKey(
+        long generation,
+        long ratingGeneration,
+        Double latitude,
+        Double longitude,
+        Double radiusMeters,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        OfferType offerType,
+        OfferStatus status,
+        BigDecimal minRating,
+        String searchQuery,
+        Long gymId,
+        Long ptUserId,
+        boolean active,
+        boolean includeFacets,
+        int page,
+        int size,
+        OfferSortField sortField,
+        Sort.Direction direction) {
+
+    static OfferSearchCacheKey of(long generation,
+                                  long ratingGeneration,
+                                  OfferSearchRequest request,
+                                  Double radiusMeters,
+                                  OfferSortField sortField,
+                                  Sort.Direction direction,
+                                  Pageable pageable) {
+        boolean geo = radiusMeters != null;
+        boolean includeFacets = Boolean.TRUE.equals(request.getIncludeFacets());
+        return new OfferSearchCacheKey(
+                generation,
+                dependsOnRatings(sortField, request.getMinRating(), includeFacets) ? ratingGeneration : 0,
+                geo ? request.getLatitude() : null,
+                geo ? request.getLongitude() : null,
+                radiusMeters,
+                normalize(request.getMinPrice()),
+                normalize(request.getMaxPrice()),
+                request.getOfferType(),
+                request.getStatus() != null ? request.getStatus() : OfferStatus.APPROVED,
+                normalize(request.getMinRating()),
+                normalize(request.getSearchQuery()),
+                request.getGymId(),
+                request.getPtUserId(),
+                request.getActive() != null ? request.getActive() : true,
+                includeFacets,
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                sortField,
+                direction);
+    }
+
+    /**
+     * Whether a rating change can reorder the page or change which offers it holds:
+     * rating and relevance sorts, the minRating filter, and rating facet counts.
+     */
+    boolean dependsOnRatings() {
+        return dependsOnRatings(sortField, minRating, includeFacets);
+    }
+
+    private static boolean dependsOnRatings(OfferSortField sortField, BigDecimal minRating, boolean includeFacets) {
+        return sortField == OfferSortField.AVERAGE_RATING
+                || sortField == OfferSortField.RATING_COUNT
+                || sortField == OfferSortField.RELEVANCE
+                || minRating != null
+                || includeFacets;
+    }
+
+    private static BigDecimal normalize(BigDecimal value) {
+        // 10 and 10.00 filter identically but are not equal()
+        return value != null ? value.stripTrailingZeros() : null;
+    }
+
+    private static String normalize(String searchQuery) {
+        if (searchQuery == null || searchQuery.isBlank()) {
+            return null;
+        }
+        // Text search queries are case-insensitive and ignore extra whitespace
+        return searchQuery.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
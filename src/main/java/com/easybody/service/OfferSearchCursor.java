@@ -0,0 +1,44 @@
+package com.easybody.service;
+
+import com.easybody.model.enums.OfferSortField;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset-paginated offer search. Encodes the sort the page
+ * was produced with, the (sort value, offer id) of its last row and the reference
+ * time relevance scores were computed against.
+ */
+record OfferSearchCursor(OfferSortField sortField,
+                         Sort.Direction direction,
+                         Instant referenceTime,
+                         Long offerId,
+                         String sortValue) {
+
+    private static final String SEPARATOR = "|";
+
+    String encode() {
+        String raw = sortField.name() + SEPARATOR + direction.name() + SEPARATOR +
+                referenceTime.toEpochMilli() + SEPARATOR + offerId + SEPARATOR + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static OfferSearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The sort value goes last so it may itself contain the separator
+            String[] parts = raw.split("\\|", 5);
+            return new OfferSearchCursor(
+                    OfferSortField.valueOf(parts[0]),
+                    Sort.Direction.valueOf(parts[1]),
+                    Instant.ofEpochMilli(Long.parseLong(parts[2])),
+                    Long.valueOf(parts[3]),
+                    parts[4]);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+    }
+}
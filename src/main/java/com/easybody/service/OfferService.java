@@ -1,8 +1,13 @@
 package com.easybody.service;
 
+import com.easybody.config.PaginationProperties;
+import com.easybody.config.SearchProperties;
 import com.easybody.dto.request.OfferCreateRequest;
 import com.easybody.dto.request.OfferSearchRequest;
 import com.easybody.dto.request.OfferUpdateRequest;
+import com.easybody.dto.response.CursorPageResponse;
+import com.easybody.dto.response.FacetCount;
+import com.easybody.dto.response.LocationResponse;
 import com.easybody.dto.response.OfferResponse;
 import com.easybody.dto.response.OfferSearchResponse;
 import com.easybody.dto.response.PageResponse;
@@ -11,23 +16,34 @@ import com.easybody.model.entity.Gym;
 import com.easybody.model.entity.Offer;
 import com.easybody.model.entity.PTUser;
 import com.easybody.model.entity.User;
+import com.easybody.model.enums.OfferSortField;
 import com.easybody.model.enums.OfferStatus;
 import com.easybody.model.enums.OfferType;
 import com.easybody.repository.GymRepository;
+import com.easybody.repository.OfferFacetCounts;
 import com.easybody.repository.OfferRepository;
+import com.easybody.repository.OfferSearchRow;
 import com.easybody.repository.PTUserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -38,6 +54,12 @@ public class OfferService {
     private final GymRepository gymRepository;
     private final PTUserRepository ptUserRepository;
     private final UserService userService;
+    private final SearchProperties searchProperties;
+    private final PaginationProperties paginationProperties;
+    private final OfferSearchCache offerSearchCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<Long, OfferResponse> offerDetailFlight;
+    private final NdjsonExporter ndjsonExporter;
 
     @Transactional
     public OfferResponse createOffer(OfferCreateRequest request, String cognitoSub) {
@@ -79,6 +101,7 @@ public class OfferService {
 
         offer = offerRepository.save(offer);
         log.info("Offer created successfully with id: {}", offer.getId());
+        eventPublisher.publishEvent(new OfferChangedEvent(offer.getId()));
 
         // TODO: push to moderation queue when implemented
         return mapToResponse(offer);
@@ -111,6 +134,7 @@ public class OfferService {
 
         offer = offerRepository.save(offer);
         log.info("Offer updated successfully");
+        eventPublisher.publishEvent(new OfferChangedEvent(offer.getId()));
 
         return mapToResponse(offer);
     }
@@ -131,6 +155,7 @@ public class OfferService {
 
         offer = offerRepository.save(offer);
         log.info("Offer approved successfully");
+        eventPublisher.publishEvent(new OfferChangedEvent(offer.getId()));
 
         return mapToResponse(offer);
     }
@@ -151,14 +176,26 @@ public class OfferService {
 
         offer = offerRepository.save(offer);
         log.info("Offer rejected successfully");
+        eventPublisher.publishEvent(new OfferChangedEvent(offer.getId()));
 
         return mapToResponse(offer);
     }
 
     public OfferResponse getOfferById(Long id) {
-        Offer offer = offerRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Offer not found with id: " + id));
-        return mapToResponse(offer);
+        // A burst of reads for the same offer shares one query
+        return offerDetailFlight.execute(id, () -> {
+            Offer offer = offerRepository.findWithOwnerById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Offer not found with id: " + id));
+            return mapToResponse(offer);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<OfferResponse> getLatestGymOffers(Long gymId, int limit) {
+        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return offerRepository.findByGymIdAndActiveTrueAndStatus(gymId, OfferStatus.APPROVED, pageable).stream()
+                .map(this::mapToResponse)
+                .toList();
     }
 
     public PageResponse<OfferResponse> getPendingOffers(int page, int size) {
@@ -167,67 +204,192 @@ public class OfferService {
         return mapToPageResponse(offerPage);
     }
 
+    /**
+     * Offset-paginated search. Results are projected straight from SQL into
+     * {@link OfferSearchResponse}s, no {@link Offer} entities are loaded. Pages are
+     * cached until an offer change commits, a cache hit never touches the database.
+     */
     public PageResponse<OfferSearchResponse> searchOffers(OfferSearchRequest request) {
         log.info("Searching offers with filters");
 
-        Specification<Offer> spec = buildSpecification(request);
-
-        String sortBy = request.getSortBy() != null ? request.getSortBy() : "createdAt";
-        Sort.Direction direction = "ASC".equalsIgnoreCase(request.getSortDirection()) ?
-                Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), Sort.by(direction, sortBy));
+        OfferSortField sortField = resolveSortField(request);
+        Sort.Direction direction = resolveDirection(request.getSortDirection(), sortField);
+        Double radiusMeters = resolveRadiusMeters(request);
+        // Clamped before the cache lookup, so no cached page is larger than app.pagination.max-page-size
+        Pageable pageable = paginationProperties.pageable(request.getPage(), request.getSize(), Sort.unsorted());
 
-        Page<Offer> offerPage = offerRepository.findAll(spec, pageable);
-        return mapToSearchPageResponse(offerPage);
+        return offerSearchCache.get(
+                (generation, ratingGeneration) -> OfferSearchCacheKey.of(generation, ratingGeneration, request,
+                        radiusMeters, sortField, direction, pageable),
+                () -> loadSearchPage(request, radiusMeters, sortField, direction, pageable));
     }
 
-    private Specification<Offer> buildSpecification(OfferSearchRequest request) {
-        Specification<Offer> spec = Specification.where(null);
+    private PageResponse<OfferSearchResponse> loadSearchPage(OfferSearchRequest request,
+                                                             Double radiusMeters,
+                                                             OfferSortField sortField,
+                                                             Sort.Direction direction,
+                                                             Pageable pageable) {
+        Page<OfferSearchRow> rows = offerRepository.search(request, radiusMeters, sortField, direction, Instant.now(), pageable);
 
-        if (request.getActive() != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("active"), request.getActive()));
-        } else {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("active"), true));
-        }
+        return PageResponse.<OfferSearchResponse>builder()
+                .content(rows.getContent().stream().map(this::mapRowToSearchResponse).toList())
+                .pageNumber(rows.getNumber())
+                .pageSize(rows.getSize())
+                .totalElements(rows.getTotalElements())
+                .totalPages(rows.getTotalPages())
+                .first(rows.isFirst())
+                .last(rows.isLast())
+                .facets(Boolean.TRUE.equals(request.getIncludeFacets()) ? loadFacets(request, radiusMeters) : null)
+                .build();
+    }
 
-        if (request.getStatus() != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), request.getStatus()));
-        } else {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), OfferStatus.APPROVED));
+    private Map<String, List<FacetCount>> loadFacets(OfferSearchRequest request, Double radiusMeters) {
+        SearchProperties.Facets config = searchProperties.getFacets();
+        List<BigDecimal> priceBreaks = config.getPriceBreaks().stream().distinct().sorted().toList();
+        List<BigDecimal> ratingBands = config.getRatingBands().stream().distinct().sorted(Comparator.reverseOrder()).toList();
+
+        OfferFacetCounts counts = offerRepository.countFacets(request, radiusMeters, priceBreaks, ratingBands);
+
+        List<FacetCount> offerTypes = counts.offerTypes().entrySet().stream()
+                .map(entry -> FacetCount.builder().value(entry.getKey().name()).count(entry.getValue()).build())
+                .toList();
+
+        List<FacetCount> prices = new ArrayList<>();
+        for (int i = 0; i <= priceBreaks.size(); i++) {
+            BigDecimal from = i > 0 ? priceBreaks.get(i - 1) : null;
+            BigDecimal to = i < priceBreaks.size() ? priceBreaks.get(i) : null;
+            prices.add(FacetCount.builder()
+                    .value(rangeLabel(from, to))
+                    .from(from)
+                    .to(to)
+                    .count(counts.priceBuckets().get(i))
+                    .build());
         }
 
-        if (request.getOfferType() != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("offerType"), request.getOfferType()));
+        List<FacetCount> ratings = new ArrayList<>();
+        for (int i = 0; i < ratingBands.size(); i++) {
+            ratings.add(FacetCount.builder()
+                    .value(rangeLabel(ratingBands.get(i), null))
+                    .from(ratingBands.get(i))
+                    .count(counts.ratingBands().get(i))
+                    .build());
         }
 
-        if (request.getMinPrice() != null) {
-            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), request.getMinPrice()));
-        }
-        if (request.getMaxPrice() != null) {
-            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), request.getMaxPrice()));
+        Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+        facets.put("offerType", offerTypes);
+        facets.put("price", prices);
+        facets.put("rating", ratings);
+        return facets;
+    }
+
+    private static String rangeLabel(BigDecimal from, BigDecimal to) {
+        return (from != null ? from.stripTrailingZeros().toPlainString() : "*") + "-" +
+                (to != null ? to.stripTrailingZeros().toPlainString() : "*");
+    }
+
+    /**
+     * Keyset-paginated search: seeks past the cursor on (sort key, id) and reports
+     * whether more rows exist instead of counting the whole result.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OfferSearchResponse> scrollOffers(OfferSearchRequest request) {
+        log.info("Scrolling offers with filters");
+
+        OfferSortField sortField = resolveSortField(request);
+        Sort.Direction direction = resolveDirection(request.getSortDirection(), sortField);
+
+        OfferSearchCursor after = null;
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            after = OfferSearchCursor.decode(request.getCursor());
+            if (after.sortField() != sortField || after.direction() != direction) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
         }
 
-        if (request.getMinRating() != null) {
-            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("averageRating"), request.getMinRating()));
+        int size = paginationProperties.pageSize(request.getSize());
+
+        // Later pages score recency against the same instant as the first
+        Instant referenceTime = after != null ? after.referenceTime() : Instant.now();
+
+        // One extra row tells us whether there is a next page
+        List<OfferSearchRow> rows = offerRepository.searchAfter(request, resolveRadiusMeters(request), sortField, direction,
+                referenceTime,
+                after != null ? after.sortValue() : null,
+                after != null ? after.offerId() : null,
+                size + 1);
+
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
         }
 
-        if (request.getGymId() != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("gym").get("id"), request.getGymId()));
+        String nextCursor = null;
+        if (hasNext) {
+            OfferSearchRow last = rows.get(rows.size() - 1);
+            nextCursor = new OfferSearchCursor(sortField, direction, referenceTime, last.id(), last.sortValue()).encode();
         }
 
-        if (request.getPtUserId() != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("ptUser").get("id"), request.getPtUserId()));
+        return CursorPageResponse.<OfferSearchResponse>builder()
+                .content(rows.stream().map(this::mapRowToSearchResponse).toList())
+                .pageSize(size)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    /**
+     * Every offer matching the search as newline-delimited JSON, one {@link OfferSearchResponse}
+     * per line, in search order; page and size are ignored. Arguments are validated before
+     * anything is written, rows are streamed from a database cursor as they are serialized.
+     */
+    public StreamingResponseBody exportOffers(OfferSearchRequest request) {
+        OfferSortField sortField = resolveSortField(request);
+        Sort.Direction direction = resolveDirection(request.getSortDirection(), sortField);
+        Double radiusMeters = resolveRadiusMeters(request);
+        Instant referenceTime = Instant.now();
+
+        log.info("Exporting offers with filters");
+        return ndjsonExporter.export("offers",
+                () -> offerRepository.stream(request, radiusMeters, sortField, direction, referenceTime,
+                        searchProperties.getExportFetchSize()),
+                this::mapRowToSearchResponse);
+    }
+
+    private boolean isGeoSearch(OfferSearchRequest request) {
+        return request.getLatitude() != null && request.getLongitude() != null;
+    }
+
+    private boolean hasSearchQuery(OfferSearchRequest request) {
+        return request.getSearchQuery() != null && !request.getSearchQuery().isBlank();
+    }
+
+    private OfferSortField resolveSortField(OfferSearchRequest request) {
+        if (request.getSortBy() != null) {
+            OfferSortField sortField = OfferSortField.fromProperty(request.getSortBy());
+            if (sortField == OfferSortField.DISTANCE && !isGeoSearch(request)) {
+                throw new IllegalArgumentException("Sorting by distance requires latitude and longitude");
+            }
+            return sortField;
         }
+        if (hasSearchQuery(request)) {
+            return OfferSortField.RELEVANCE;
+        }
+        return isGeoSearch(request) ? OfferSortField.DISTANCE : OfferSortField.CREATED_AT;
+    }
 
-        if (request.getSearchQuery() != null && !request.getSearchQuery().isBlank()) {
-            String searchPattern = "%" + request.getSearchQuery().toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.or(
-                    cb.like(cb.lower(root.get("title")), searchPattern),
-                    cb.like(cb.lower(root.get("description")), searchPattern)
-            ));
+    private Double resolveRadiusMeters(OfferSearchRequest request) {
+        if (!isGeoSearch(request)) {
+            return null;
         }
+        return searchProperties.radiusMeters(request.getRadiusKm());
+    }
 
-        return spec;
+    private Sort.Direction resolveDirection(String sortDirection, OfferSortField sortField) {
+        if (sortDirection == null) {
+            // Nearest first; everything else, relevance included, highest first
+            return sortField == OfferSortField.DISTANCE ? Sort.Direction.ASC : Sort.Direction.DESC;
+        }
+        return "ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC;
     }
 
     private PageResponse<OfferResponse> mapToPageResponse(Page<Offer> page) {
@@ -242,18 +404,6 @@ public class OfferService {
                 .build();
     }
 
-    private PageResponse<OfferSearchResponse> mapToSearchPageResponse(Page<Offer> page) {
-        return PageResponse.<OfferSearchResponse>builder()
-                .content(page.getContent().stream().map(this::mapToSearchResponse).toList())
-                .pageNumber(page.getNumber())
-                .pageSize(page.getSize())
-                .totalElements(page.getTotalElements())
-                .totalPages(page.getTotalPages())
-                .first(page.isFirst())
-                .last(page.isLast())
-                .build();
-    }
-
     private OfferResponse mapToResponse(Offer offer) {
         return OfferResponse.builder()
                 .id(offer.getId())
@@ -275,6 +425,12 @@ public class OfferService {
                 .rejectionReason(offer.getRejectionReason())
                 .averageRating(offer.getAverageRating())
                 .ratingCount(offer.getRatingCount())
+                .ratingDistribution(new TreeMap<>(Map.of(
+                        1, offer.getRating1Count(),
+                        2, offer.getRating2Count(),
+                        3, offer.getRating3Count(),
+                        4, offer.getRating4Count(),
+                        5, offer.getRating5Count())))
                 .active(offer.getActive())
                 .createdAt(offer.getCreatedAt())
                 .updatedAt(offer.getUpdatedAt())
@@ -282,23 +438,30 @@ public class OfferService {
                 .build();
     }
 
-    private OfferSearchResponse mapToSearchResponse(Offer offer) {
+    private OfferSearchResponse mapRowToSearchResponse(OfferSearchRow row) {
         return OfferSearchResponse.builder()
-                .id(offer.getId())
-                .title(offer.getTitle())
-                .description(offer.getDescription())
-                .offerType(offer.getOfferType().name())
-                .gymName(offer.getGym() != null ? offer.getGym().getName() : null)
-                .ptUserName(offer.getPtUser() != null
-                        ? offer.getPtUser().getUser().getFirstName() + " " + offer.getPtUser().getUser().getLastName()
+                .id(row.id())
+                .title(row.title())
+                .description(row.description())
+                .offerType(row.offerType())
+                .gymName(row.gymName())
+                .ptUserName(row.ptUserName())
+                .price(row.price())
+                .currency(row.currency())
+                .durationDescription(row.durationDescription())
+                .imageUrls(row.imageUrls())
+                .averageRating(row.averageRating())
+                .ratingCount(row.ratingCount())
+                .distanceKm(row.distanceKm())
+                .location(row.locationId() != null
+                        ? LocationResponse.builder()
+                                .id(row.locationId())
+                                .latitude(row.latitude())
+                                .longitude(row.longitude())
+                                .formattedAddress(row.formattedAddress())
+                                .build()
                         : null)
-                .price(offer.getPrice())
-                .currency(offer.getCurrency())
-                .durationDescription(offer.getDurationDescription())
-                .imageUrls(offer.getImageUrls())
-                .averageRating(offer.getAverageRating())
-                .ratingCount(offer.getRatingCount())
-                .createdAt(offer.getCreatedAt())
+                .createdAt(row.createdAt())
                 .build();
     }
 }
@@ -0,0 +1,7 @@
+package com.easybody.service;
+
+/**
+ * Published when a PT profile changes. Listeners run after the change commits.
+ */
+public record PTUserChangedEvent(Long ptUserId) {
+}
@@ -1,15 +1,21 @@
 package com.easybody.service;
 
+import com.easybody.config.CacheConfig;
+import com.easybody.config.PaginationProperties;
+import com.easybody.config.SearchProperties;
 import com.easybody.dto.request.PTUserCreateRequest;
 import com.easybody.dto.request.PTUserUpdateRequest;
 import com.easybody.dto.response.LocationResponse;
 import com.easybody.dto.response.PTUserResponse;
+import com.easybody.dto.response.PageResponse;
 import com.easybody.dto.response.UserResponse;
 import com.easybody.exception.ResourceNotFoundException;
 import com.easybody.model.entity.Location;
 import com.easybody.model.entity.PTUser;
 import com.easybody.model.entity.User;
+import com.easybody.model.enums.NearbySortField;
 import com.easybody.model.enums.Role;
+import com.easybody.repository.NearbyMatch;
 import com.easybody.repository.PTUserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,10 +23,17 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +43,10 @@ public class PTUserService {
 
     private final PTUserRepository ptUserRepository;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaginationProperties paginationProperties;
+    private final SearchProperties searchProperties;
+    private final NdjsonExporter ndjsonExporter;
     private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
 
     @Transactional
@@ -85,27 +102,55 @@ public class PTUserService {
 
         ptUser = ptUserRepository.save(ptUser);
         log.info("PT profile updated successfully");
+        eventPublisher.publishEvent(new PTUserChangedEvent(ptUserId));
 
         return mapToResponse(ptUser);
     }
 
+    @Cacheable(cacheNames = CacheConfig.PT_USER_DETAIL_CACHE, key = "#id")
+    @Transactional(readOnly = true)
     public PTUserResponse getPTUserById(Long id) {
-        PTUser ptUser = ptUserRepository.findById(id)
+        PTUser ptUser = ptUserRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("PT User not found with id: " + id));
         return mapToResponse(ptUser);
     }
 
-    public List<PTUserResponse> getAllActivePTUsers() {
-        return ptUserRepository.findByActiveTrue().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PageResponse<PTUserResponse> getActivePTUsers(Integer page, Integer size) {
+        Pageable pageable = paginationProperties.pageable(page, size, Sort.by("id"));
+        return mapToPageResponse(ptUserRepository.findByActiveTrue(pageable).map(this::mapToResponse));
     }
 
-    public List<PTUserResponse> findPTUsersNearLocation(Double latitude, Double longitude, Double radiusKm) {
-        Double radiusMeters = radiusKm * 1000;
-        return ptUserRepository.findPTUsersNearLocation(latitude, longitude, radiusMeters).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Active PT users within {@code radiusKm} (default and upper bound from {@code app.search}),
+     * nearest first or, with {@code sortBy=rating}, best rated first. Each comes with its distance.
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<PTUserResponse> findPTUsersNearLocation(Double latitude, Double longitude, Double radiusKm,
+                                                                String sortBy, Integer page, Integer size) {
+        double radiusMeters = searchProperties.radiusMeters(radiusKm);
+        NearbySortField sort = sortBy != null ? NearbySortField.fromProperty(sortBy) : NearbySortField.DISTANCE;
+        // The native queries order by themselves
+        Pageable pageable = paginationProperties.pageable(page, size, Sort.unsorted());
+        Page<NearbyMatch> matches = sort == NearbySortField.RATING
+                ? ptUserRepository.findPTUsersNearLocationByRating(latitude, longitude, radiusMeters, pageable)
+                : ptUserRepository.findPTUsersNearLocation(latitude, longitude, radiusMeters, pageable);
+
+        Map<Long, PTUser> ptUsersById = ptUserRepository.findByIdIn(matches.map(NearbyMatch::getId).getContent()).stream()
+                .collect(Collectors.toMap(PTUser::getId, Function.identity()));
+        return mapToPageResponse(matches.map(match -> {
+            PTUserResponse response = mapToResponse(ptUsersById.get(match.getId()));
+            response.setDistanceKm(match.getDistanceKm());
+            return response;
+        }));
+    }
+
+    /**
+     * Every active PT user as NDJSON, read through a database cursor.
+     */
+    public StreamingResponseBody exportActivePTUsers() {
+        log.info("Exporting active PT users");
+        return ndjsonExporter.export("PT users", ptUserRepository::streamByActiveTrueOrderByIdAsc, this::mapToResponse);
     }
 
     private Location createLocation(Double latitude, Double longitude) {
@@ -121,6 +166,18 @@ public class PTUserService {
         return geometryFactory.createPoint(new Coordinate(longitude, latitude));
     }
 
+    private PageResponse<PTUserResponse> mapToPageResponse(Page<PTUserResponse> page) {
+        return PageResponse.<PTUserResponse>builder()
+                .content(page.getContent())
+                .pageNumber(page.getNumber())
+                .pageSize(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .first(page.isFirst())
+                .last(page.isLast())
+                .build();
+    }
+
     private PTUserResponse mapToResponse(PTUser ptUser) {
         return PTUserResponse.builder()
                 .id(ptUser.getId())
@@ -131,6 +188,9 @@ public class PTUserService {
                 .yearsOfExperience(ptUser.getYearsOfExperience())
                 .profileImageUrl(ptUser.getProfileImageUrl())
                 .location(ptUser.getLocation() != null ? mapLocationToResponse(ptUser.getLocation()) : null)
+                .averageRating(ptUser.getAverageRating())
+                .ratingCount(ptUser.getRatingCount())
+                .ratedOfferCount(ptUser.getRatedOfferCount())
                 .active(ptUser.getActive())
                 .verified(ptUser.getVerified())
                 .createdAt(ptUser.getCreatedAt())
@@ -0,0 +1,78 @@
+package com.easybody.service;
+
+import com.easybody.config.CacheConfig;
+import com.easybody.repository.OfferOwners;
+import com.easybody.repository.OfferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Drops cached gym and PT profiles once a change to them, or to the rating rollup of one
+ * of their offers, commits, so a reader never caches the old row again after the eviction.
+ */
+@Component
+@Slf4j
+public class ProfileCacheEvictor {
+
+    private final CacheManager cacheManager;
+    private final OfferRepository offerRepository;
+    private final TransactionTemplate readTransaction;
+
+    public ProfileCacheEvictor(CacheManager cacheManager,
+                               OfferRepository offerRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.cacheManager = cacheManager;
+        this.offerRepository = offerRepository;
+        // Change events arrive after commit, the owner lookup needs a transaction of its own
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGymChanged(GymChangedEvent event) {
+        log.debug("Gym {} changed, evicting cached profile", event.gymId());
+        cacheManager.getCache(CacheConfig.GYM_DETAIL_CACHE).evict(event.gymId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPTUserChanged(PTUserChangedEvent event) {
+        log.debug("PT user {} changed, evicting cached profile", event.ptUserId());
+        cacheManager.getCache(CacheConfig.PT_USER_DETAIL_CACHE).evict(event.ptUserId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOfferChanged(OfferChangedEvent event) {
+        // The owner's rating rollup (V12) follows the offer's aggregates and visibility
+        evictOwners(List.of(event.offerId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOfferRatingsChanged(OfferRatingsChangedEvent event) {
+        evictOwners(event.offerIds());
+    }
+
+    // One query for the owners of all changed offers
+    private void evictOwners(Collection<Long> offerIds) {
+        Cache gyms = cacheManager.getCache(CacheConfig.GYM_DETAIL_CACHE);
+        Cache ptUsers = cacheManager.getCache(CacheConfig.PT_USER_DETAIL_CACHE);
+        List<OfferOwners> offerOwners = readTransaction.execute(status -> offerRepository.findOwnersByIdIn(offerIds));
+        for (OfferOwners owners : offerOwners) {
+            if (owners.gymId() != null) {
+                gyms.evict(owners.gymId());
+            }
+            if (owners.ptUserId() != null) {
+                ptUsers.evict(owners.ptUserId());
+            }
+        }
+    }
+}
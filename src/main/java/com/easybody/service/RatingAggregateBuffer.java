@@ -0,0 +1,111 @@
+package com.easybody.service;
+
+import com.easybody.config.RatingProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Write-behind offer rating aggregates. Ratings are inserted with the aggregate trigger
+ * deferred (V10); instead of updating the offer, the trigger records the rating's star delta
+ * in {@code rating_deltas} (V13). Each flush applies every pending delta to the offers in one
+ * set-based call, so concurrent ratings of one offer no longer queue on its row lock.
+ * <p>
+ * Pending deltas live in the database, not in this process: a crash loses none of them, and
+ * any instance's flush applies each exactly once. {@code reconcile_offer_ratings()} runs at
+ * startup to repair drifted aggregates; it leaves pending deltas to the flush and shares an
+ * advisory lock with it, so a reconcile during another instance's flush cannot count a
+ * delta twice. {@code reconcile_owner_ratings()} repairs the gym and PT rollups.
+ */
+@Component
+// Created at startup despite lazy initialization, so reconciling cannot run inside a rating's transaction
+@Lazy(false)
+@ConditionalOnProperty(prefix = "app.ratings.write-behind", name = "enabled", havingValue = "true")
+@Slf4j
+public class RatingAggregateBuffer {
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final Duration flushInterval;
+
+    public RatingAggregateBuffer(EntityManager entityManager,
+                                 JdbcTemplate jdbcTemplate,
+                                 ApplicationEventPublisher eventPublisher,
+                                 RatingProperties ratingProperties) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+
+        this.flushInterval = ratingProperties.getWriteBehind().getFlushInterval();
+
+        this.scheduler = new ThreadPoolTaskScheduler();
+        this.scheduler.setPoolSize(1);
+        this.scheduler.setThreadNamePrefix("rating-flush-");
+        // Let a running flush finish its statement on shutdown instead of interrupting it
+        this.scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        this.scheduler.setAwaitTerminationSeconds(30);
+        this.scheduler.initialize();
+    }
+
+    @PostConstruct
+    public void start() {
+        reconcile();
+        scheduler.scheduleWithFixedDelay(this::flush, flushInterval);
+    }
+
+    /**
+     * Stops the aggregate trigger for the rest of the current transaction. Must run in the
+     * transaction that inserts the rating.
+     */
+    void deferAggregates() {
+        entityManager.createNativeQuery("SELECT set_config('easybody.defer_rating_aggregates', 'on', true)")
+                .getSingleResult();
+    }
+
+    synchronized void flush() {
+        List<Long> offerIds;
+        try {
+            // Deletes the deltas it applies in the same statement; on failure both roll back
+            offerIds = jdbcTemplate.queryForList("SELECT flush_rating_deltas()", Long.class);
+        } catch (DataAccessException ex) {
+            // The deltas stay in rating_deltas for the next flush
+            log.error("Could not flush rating aggregates", ex);
+            return;
+        }
+        if (offerIds.isEmpty()) {
+            return;
+        }
+
+        log.debug("Flushed rating aggregates for {} offers", offerIds.size());
+        // One event per flush: listeners refresh the flushed offers in a batch
+        eventPublisher.publishEvent(new OfferRatingsChangedEvent(offerIds));
+    }
+
+    private void reconcile() {
+        Integer corrected = jdbcTemplate.queryForObject("SELECT reconcile_offer_ratings()", Integer.class);
+        log.info("Reconciled rating aggregates, {} offers corrected", corrected);
+        // Offer corrections already carry over to their owners; this catches drift of the rollups themselves
+        Integer ownersCorrected = jdbcTemplate.queryForObject("SELECT reconcile_owner_ratings()", Integer.class);
+        log.info("Reconciled gym and PT rating rollups, {} rows corrected", ownersCorrected);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Blocks until a flush in progress has finished, then drains what is left
+        scheduler.shutdown();
+        flush();
+    }
+}
@@ -3,14 +3,21 @@ package com.easybody.service;
 import com.easybody.dto.request.RatingCreateRequest;
 import com.easybody.dto.response.PageResponse;
 import com.easybody.dto.response.RatingResponse;
+import com.easybody.dto.response.RatingSummaryResponse;
+import com.easybody.exception.ConflictException;
 import com.easybody.exception.ResourceNotFoundException;
 import com.easybody.model.entity.Offer;
 import com.easybody.model.entity.Rating;
 import com.easybody.model.entity.User;
+import com.easybody.repository.GymRepository;
 import com.easybody.repository.OfferRepository;
 import com.easybody.repository.RatingRepository;
+import com.easybody.repository.RatingTotals;
+import com.easybody.repository.RatingWrite;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,6 +27,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -28,7 +38,11 @@ public class RatingService {
 
     private final RatingRepository ratingRepository;
     private final OfferRepository offerRepository;
+    private final GymRepository gymRepository;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    // Only present in write-behind mode (app.ratings.write-behind.enabled)
+    private final ObjectProvider<RatingAggregateBuffer> aggregateBuffer;
 
     @Transactional
     public RatingResponse createRating(RatingCreateRequest request, String cognitoSub) {
@@ -36,51 +50,101 @@ public class RatingService {
 
         User clientUser = userService.getUserEntityByCognitoSub(cognitoSub);
 
-        Offer offer = offerRepository.findById(request.getOfferId())
-                .orElseThrow(() -> new ResourceNotFoundException("Offer not found"));
+        RatingAggregateBuffer writeBehind = aggregateBuffer.getIfAvailable();
+        if (writeBehind != null) {
+            writeBehind.deferAggregates();
+        }
+
+        // A single insert: the unique (offer_id, client_user_id) constraint settles double submits
+        RatingWrite written = ratingRepository.insertIfAbsent(request.getOfferId(), clientUser.getId(),
+                        request.getRating(), request.getComment())
+                .orElseThrow(() -> offerRepository.existsById(request.getOfferId())
+                        ? new ConflictException("You have already rated this offer")
+                        : new ResourceNotFoundException("Offer not found"));
+        log.info("Rating created successfully with id: {}", written.getId());
+
+        // In write-behind mode the trigger queued the delta instead; the flush applying it announces the change
+        if (writeBehind == null) {
+            // The ratings trigger (V9) adds this rating to the offer's aggregates in the same transaction
+            eventPublisher.publishEvent(new OfferRatingsChangedEvent(List.of(request.getOfferId())));
+        }
+
+        return mapToResponse(written, request, clientUser);
+    }
 
-        // Check if user already rated this offer
-        ratingRepository.findByOfferIdAndClientUserId(request.getOfferId(), clientUser.getId())
-                .ifPresent(r -> {
-                    throw new IllegalArgumentException("You have already rated this offer");
-                });
+    /**
+     * Rates the offer, or replaces the stars and comment of the caller's existing rating of it.
+     * Not deferred in write-behind mode: the ratings trigger moves an edited rating between
+     * stars in this transaction.
+     */
+    @Transactional
+    public RatingResponse upsertRating(RatingCreateRequest request, String cognitoSub) {
+        log.info("Upserting rating for offer: {}", request.getOfferId());
 
-        Rating rating = Rating.builder()
-                .offer(offer)
-                .clientUser(clientUser)
-                .rating(request.getRating())
-                .comment(request.getComment())
-                .build();
+        User clientUser = userService.getUserEntityByCognitoSub(cognitoSub);
 
-        rating = ratingRepository.save(rating);
-        log.info("Rating created successfully with id: {}", rating.getId());
+        RatingWrite written = ratingRepository.upsert(request.getOfferId(), clientUser.getId(),
+                        request.getRating(), request.getComment())
+                .orElseThrow(() -> new ResourceNotFoundException("Offer not found"));
 
-        // Update offer average rating
-        updateOfferRating(offer.getId());
+        eventPublisher.publishEvent(new OfferRatingsChangedEvent(List.of(request.getOfferId())));
 
-        return mapToResponse(rating);
+        return mapToResponse(written, request, clientUser);
     }
 
-    @Transactional
-    public void updateOfferRating(Long offerId) {
-        Double avgRating = ratingRepository.calculateAverageRating(offerId);
-        Long ratingCount = ratingRepository.countByOfferId(offerId);
+    public PageResponse<RatingResponse> getRatingsByOfferId(Long offerId, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        Page<Rating> ratingPage = ratingRepository.findByOfferId(offerId, pageable);
+        return mapToPageResponse(ratingPage);
+    }
 
+    /**
+     * Average and star distribution of an offer's ratings, read from the offer's maintained
+     * aggregates without touching the ratings.
+     */
+    @Transactional(readOnly = true)
+    public RatingSummaryResponse getOfferRatingSummary(Long offerId) {
         Offer offer = offerRepository.findById(offerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Offer not found"));
+        return summary(new RatingTotals(
+                offer.getRatingCount().longValue(),
+                offer.getRatingSum(),
+                offer.getRating1Count().longValue(),
+                offer.getRating2Count().longValue(),
+                offer.getRating3Count().longValue(),
+                offer.getRating4Count().longValue(),
+                offer.getRating5Count().longValue()));
+    }
 
-        offer.setAverageRating(avgRating != null ?
-                BigDecimal.valueOf(avgRating).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-        offer.setRatingCount(ratingCount.intValue());
+    /**
+     * Average and star distribution over all ratings of a gym's approved offers: the count and
+     * sum from the gym's rating rollup, so the average matches the gym's {@code averageRating}.
+     */
+    public RatingSummaryResponse getGymRatingSummary(Long gymId) {
+        return summary(gymRepository.sumRatingsById(gymId)
+                .orElseThrow(() -> new ResourceNotFoundException("Gym not found")));
+    }
 
-        offerRepository.save(offer);
-        log.info("Updated offer {} rating: {} ({} ratings)", offerId, avgRating, ratingCount);
+    private static RatingSummaryResponse summary(RatingTotals totals) {
+        long count = orZero(totals.ratingCount());
+        BigDecimal average = count > 0
+                ? BigDecimal.valueOf(orZero(totals.ratingSum())).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        Map<Integer, Long> distribution = new TreeMap<>(Map.of(
+                1, orZero(totals.rating1Count()),
+                2, orZero(totals.rating2Count()),
+                3, orZero(totals.rating3Count()),
+                4, orZero(totals.rating4Count()),
+                5, orZero(totals.rating5Count())));
+        return RatingSummaryResponse.builder()
+                .averageRating(average)
+                .ratingCount(count)
+                .distribution(distribution)
+                .build();
     }
 
-    public PageResponse<RatingResponse> getRatingsByOfferId(Long offerId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Rating> ratingPage = ratingRepository.findByOfferId(offerId, pageable);
-        return mapToPageResponse(ratingPage);
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
     }
 
     private PageResponse<RatingResponse> mapToPageResponse(Page<Rating> page) {
@@ -95,6 +159,19 @@ public class RatingService {
                 .build();
     }
 
+    private RatingResponse mapToResponse(RatingWrite written, RatingCreateRequest request, User clientUser) {
+        return RatingResponse.builder()
+                .id(written.getId())
+                .offerId(request.getOfferId())
+                .offerTitle(written.getOfferTitle())
+                .clientUserId(clientUser.getId())
+                .clientUserName(clientUser.getFirstName() + " " + clientUser.getLastName())
+                .rating(request.getRating())
+                .comment(request.getComment())
+                .createdAt(written.getCreatedAt())
+                .build();
+    }
+
     private RatingResponse mapToResponse(Rating rating) {
         return RatingResponse.builder()
                 .id(rating.getId())
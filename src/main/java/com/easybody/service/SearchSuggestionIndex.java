@@ -0,0 +1,436 @@
+package com.easybody.service;
+
+import com.easybody.dto.response.SuggestionResponse;
+import com.easybody.model.enums.SuggestionType;
+import com.easybody.repository.GymRepository;
+import com.easybody.repository.OfferRepository;
+import com.easybody.repository.SuggestionSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index over approved offer titles, active gym names and the cities
+ * those gyms are in. Every word of a name is a key, so "yo" finds "Morning Yoga".
+ * Short prefixes, which match a large part of the index, keep their entries ranked best
+ * first, so a lookup reads only the entries it returns. Longer prefixes are selective
+ * enough to rank on the fly, but only over their first {@link #MAX_SCAN} matching words in
+ * key order: past that a lookup returns the best of those, not of every match. Reads are
+ * lock-free; offer and gym changes are read from the database outside the index lock and
+ * update only the entries they touch.
+ */
+@Component
+@Slf4j
+public class SearchSuggestionIndex {
+
+    // Separates the indexed text from the entry key, sorts before any text character
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final int MAX_LIMIT = 20;
+
+    // Prefixes up to this length are kept ranked
+    private static final int RANKED_PREFIX_LENGTH = 3;
+
+    // Longer prefixes rank at most this many matching words; past it results are the best of those
+    private static final int MAX_SCAN = 1_000;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator
+            .comparingDouble(Suggestion::score).reversed()
+            .thenComparing(Suggestion::text);
+
+    // Total order for the ranked sets: entries with equal score and text still differ by key
+    private static final Comparator<Suggestion> RANKING = BEST_FIRST.thenComparing(Suggestion::key);
+
+    private final OfferRepository offerRepository;
+    private final GymRepository gymRepository;
+    private final TransactionTemplate readTransaction;
+
+    private final ConcurrentSkipListMap<String, Suggestion> index = new ConcurrentSkipListMap<>();
+    private final Map<String, Suggestion> entries = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<Suggestion>> ranked = new ConcurrentHashMap<>();
+
+    // Changes that arrive before the first full load, applied right after it
+    private final Set<Long> pendingOfferIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingGymIds = ConcurrentHashMap.newKeySet();
+
+    // Writer-side bookkeeping for city entries, only touched under the index lock
+    private final Map<String, Map<Long, Double>> gymRatingsByCity = new HashMap<>();
+    private final Map<String, String> cityNames = new HashMap<>();
+    private final Map<Long, String> gymCities = new HashMap<>();
+
+    // Numbers refresh loads in start order. A load started later reads at least every change
+    // an earlier one was started for, so an entry never goes back to an earlier load's row.
+    private final AtomicLong loadSequence = new AtomicLong();
+    private final Map<String, Long> appliedLoads = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    public SearchSuggestionIndex(OfferRepository offerRepository,
+                                 GymRepository gymRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.offerRepository = offerRepository;
+        this.gymRepository = gymRepository;
+        // Change events arrive after commit, their reads need a transaction of their own
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Best {@code limit} entries having a word that starts with {@code query}, highest rated first.
+     */
+    public List<SuggestionResponse> suggest(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        limit = Math.min(limit, MAX_LIMIT);
+        ensureLoaded();
+
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        List<Suggestion> result;
+        if (prefix.length() <= RANKED_PREFIX_LENGTH) {
+            Set<Suggestion> rankedEntries = ranked.get(prefix);
+            result = rankedEntries != null ? rankedEntries.stream().limit(limit).toList() : List.of();
+        } else {
+            result = rankMatches(prefix, limit);
+        }
+
+        return result.stream()
+                .map(suggestion -> SuggestionResponse.builder()
+                        .type(suggestion.type())
+                        .id(suggestion.id())
+                        .text(suggestion.text())
+                        .context(suggestion.context())
+                        .build())
+                .toList();
+    }
+
+    private List<Suggestion> rankMatches(String prefix, int limit) {
+        // Keep the best entries in a bounded heap whose head is the worst of them
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        Set<String> seen = new HashSet<>();
+        int scanned = 0;
+        for (Suggestion suggestion : index.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            if (++scanned > MAX_SCAN) {
+                break;
+            }
+            if (!seen.add(suggestion.key())) {
+                continue;
+            }
+            best.offer(suggestion);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Suggestion> result = new ArrayList<>(best);
+        result.sort(BEST_FIRST);
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException ex) {
+            // Retried by the first suggest request
+            log.warn("Could not build the search suggestion index at startup", ex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOfferChanged(OfferChangedEvent event) {
+        refresh(List.of(event.offerId()), List.of());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOfferRatingsChanged(OfferRatingsChangedEvent event) {
+        // Offers, their gyms and those gyms' cities rank by rating
+        refresh(event.offerIds(), List.of());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGymChanged(GymChangedEvent event) {
+        refresh(List.of(), List.of(event.gymId()));
+    }
+
+    private void refresh(Collection<Long> offerIds, Collection<Long> gymIds) {
+        if (!loaded) {
+            pendingOfferIds.addAll(offerIds);
+            pendingGymIds.addAll(gymIds);
+            // The first load has not finished yet and will apply them; if it just did, apply them here
+            if (!loaded) {
+                return;
+            }
+        }
+        long sequence = loadSequence.incrementAndGet();
+        apply(sequence, readTransaction.execute(status -> load(offerIds, gymIds)));
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    readTransaction.executeWithoutResult(status -> rebuild());
+                    loaded = true;
+                    // Changes that committed while the index was being built may be missing from it
+                    List<Long> offerIds = drain(pendingOfferIds);
+                    List<Long> gymIds = drain(pendingGymIds);
+                    long sequence = loadSequence.incrementAndGet();
+                    apply(sequence, readTransaction.execute(status -> load(offerIds, gymIds)));
+                }
+            }
+        }
+    }
+
+    private static List<Long> drain(Set<Long> ids) {
+        List<Long> drained = new ArrayList<>();
+        for (Long id : ids) {
+            if (ids.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    private synchronized void rebuild() {
+        index.clear();
+        entries.clear();
+        ranked.clear();
+        gymRatingsByCity.clear();
+        cityNames.clear();
+        gymCities.clear();
+        appliedLoads.clear();
+
+        offerRepository.findSuggestionSources().forEach(this::putOffer);
+        gymRepository.findSuggestionSources().forEach(this::putGym);
+        new ArrayList<>(cityNames.keySet()).forEach(this::refreshCity);
+
+        log.info("Built search suggestion index with {} entries", entries.size());
+    }
+
+    private Changes load(Collection<Long> offerIds, Collection<Long> gymIds) {
+        Set<Long> allGymIds = new HashSet<>(gymIds);
+        List<SuggestionSource> offers = List.of();
+        if (!offerIds.isEmpty()) {
+            offers = offerRepository.findSuggestionSourcesByIdIn(offerIds);
+            // The owning gyms rank by their offers' ratings
+            allGymIds.addAll(offerRepository.findGymIdsByIdIn(offerIds));
+        }
+        List<SuggestionSource> gyms = allGymIds.isEmpty()
+                ? List.of()
+                : gymRepository.findSuggestionSourcesByIdIn(allGymIds);
+        return new Changes(offerIds, offers, allGymIds, gyms);
+    }
+
+    private synchronized void apply(long sequence, Changes changes) {
+        Set<Long> offerIds = new HashSet<>();
+        for (Long offerId : changes.offerIds()) {
+            if (isCurrent(key(SuggestionType.OFFER, offerId), sequence)) {
+                offerIds.add(offerId);
+                remove(key(SuggestionType.OFFER, offerId));
+            }
+        }
+        changes.offers().stream()
+                .filter(source -> offerIds.contains(source.id()))
+                .forEach(this::putOffer);
+
+        Set<String> cities = new HashSet<>();
+        Set<Long> gymIds = new HashSet<>();
+        for (Long gymId : changes.gymIds()) {
+            if (!isCurrent(key(SuggestionType.GYM, gymId), sequence)) {
+                continue;
+            }
+            gymIds.add(gymId);
+            remove(key(SuggestionType.GYM, gymId));
+            String oldCity = gymCities.remove(gymId);
+            if (oldCity != null) {
+                gymRatingsByCity.getOrDefault(oldCity, new HashMap<>()).remove(gymId);
+                cities.add(oldCity);
+            }
+        }
+
+        changes.gyms().stream()
+                .filter(source -> gymIds.contains(source.id()))
+                .forEach(this::putGym);
+
+        // Both the cities the gyms left and the ones they are in now
+        for (Long gymId : gymIds) {
+            String newCity = gymCities.get(gymId);
+            if (newCity != null) {
+                cities.add(newCity);
+            }
+        }
+        cities.forEach(this::refreshCity);
+    }
+
+    /**
+     * Records {@code sequence} as the load an entry was last read by, unless a later load
+     * already applied it.
+     */
+    private boolean isCurrent(String key, long sequence) {
+        Long applied = appliedLoads.get(key);
+        if (applied != null && applied > sequence) {
+            return false;
+        }
+        appliedLoads.put(key, sequence);
+        return true;
+    }
+
+    private void putOffer(SuggestionSource source) {
+        put(new Suggestion(SuggestionType.OFFER, source.id(), source.text(), source.context(), rating(source)));
+    }
+
+    private void putGym(SuggestionSource source) {
+        put(new Suggestion(SuggestionType.GYM, source.id(), source.text(), source.context(), rating(source)));
+
+        String city = normalize(source.context());
+        if (!city.isEmpty()) {
+            gymCities.put(source.id(), city);
+            gymRatingsByCity.computeIfAbsent(city, c -> new HashMap<>()).put(source.id(), rating(source));
+            cityNames.putIfAbsent(city, source.context().trim());
+        }
+    }
+
+    /**
+     * A city is suggested while it has an active gym and ranks by its best rated one.
+     */
+    private void refreshCity(String city) {
+        Map<Long, Double> gymRatings = gymRatingsByCity.get(city);
+        if (gymRatings == null || gymRatings.isEmpty()) {
+            gymRatingsByCity.remove(city);
+            cityNames.remove(city);
+            remove(cityKey(city));
+            return;
+        }
+        double best = gymRatings.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        put(new Suggestion(SuggestionType.CITY, null, cityNames.get(city), null, best));
+    }
+
+    private void put(Suggestion suggestion) {
+        remove(suggestion.key());
+        entries.put(suggestion.key(), suggestion);
+        for (String word : wordSuffixes(suggestion.text())) {
+            index.put(word + KEY_SEPARATOR + suggestion.key(), suggestion);
+        }
+        for (String prefix : rankedPrefixes(suggestion.text())) {
+            ranked.computeIfAbsent(prefix, p -> new ConcurrentSkipListSet<>(RANKING)).add(suggestion);
+        }
+    }
+
+    private void remove(String key) {
+        Suggestion previous = entries.remove(key);
+        if (previous != null) {
+            for (String word : wordSuffixes(previous.text())) {
+                index.remove(word + KEY_SEPARATOR + key);
+            }
+            for (String prefix : rankedPrefixes(previous.text())) {
+                ranked.computeIfPresent(prefix, (p, rankedEntries) -> {
+                    rankedEntries.remove(previous);
+                    return rankedEntries.isEmpty() ? null : rankedEntries;
+                });
+            }
+        }
+    }
+
+    /**
+     * The normalized text from the start of each of its words: "morning yoga" gives
+     * "morning yoga" and "yoga".
+     */
+    private static List<String> wordSuffixes(String text) {
+        String normalized = normalize(text);
+        List<String> suffixes = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return suffixes;
+        }
+        suffixes.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            suffixes.add(normalized.substring(i + 1));
+        }
+        return suffixes;
+    }
+
+    /**
+     * The short prefixes a lookup can match the text on: up to {@link #RANKED_PREFIX_LENGTH}
+     * characters from the start of each of its words.
+     */
+    private static Set<String> rankedPrefixes(String text) {
+        Set<String> prefixes = new HashSet<>();
+        for (String suffix : wordSuffixes(text)) {
+            for (int length = 1; length <= Math.min(RANKED_PREFIX_LENGTH, suffix.length()); length++) {
+                prefixes.add(suffix.substring(0, length));
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Lower case, accents and punctuation stripped, so "Đà Nẵng" and "da nang" match.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        folded = DIACRITICS.matcher(folded).replaceAll("")
+                // Not a combining mark, NFD leaves it alone
+                .replace('đ', 'd')
+                .replace('Đ', 'D');
+        return NON_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static double rating(SuggestionSource source) {
+        return source.rating() != null ? source.rating() : 0;
+    }
+
+    private static String key(SuggestionType type, Long id) {
+        return type.name() + ":" + id;
+    }
+
+    private static String cityKey(String city) {
+        return SuggestionType.CITY.name() + ":" + city;
+    }
+
+    /**
+     * Rows read for one refresh, applied to the index under its lock.
+     */
+    private record Changes(Collection<Long> offerIds, List<SuggestionSource> offers,
+                           Collection<Long> gymIds, List<SuggestionSource> gyms) {
+    }
+
+    private record Suggestion(SuggestionType type, Long id, String text, String context, double score) {
+
+        String key() {
+            return id != null ? SearchSuggestionIndex.key(type, id) : cityKey(normalize(text));
+        }
+    }
+}
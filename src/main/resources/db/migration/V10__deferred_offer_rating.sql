@@ -0,0 +1,48 @@
+-- Write-behind rating mode (app.ratings.write-behind.enabled): the application inserts
+-- ratings with easybody.defer_rating_aggregates set for its transaction and applies the
+-- aggregate deltas itself, in batches. Without the setting the trigger works as in V9.
+CREATE OR REPLACE FUNCTION apply_offer_rating_delta()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF current_setting('easybody.defer_rating_aggregates', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'INSERT' THEN
+        PERFORM add_offer_rating(NEW.offer_id, NEW.rating, 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM add_offer_rating(OLD.offer_id, -OLD.rating, -1);
+    ELSIF NEW.offer_id IS DISTINCT FROM OLD.offer_id THEN
+        PERFORM add_offer_rating(OLD.offer_id, -OLD.rating, -1);
+        PERFORM add_offer_rating(NEW.offer_id, NEW.rating, 1);
+    ELSIF NEW.rating IS DISTINCT FROM OLD.rating THEN
+        PERFORM add_offer_rating(NEW.offer_id, NEW.rating - OLD.rating, 0);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Re-derives aggregates from ratings for offers where they drifted, e.g. deltas lost in a
+-- crash before their flush. Returns the number of offers corrected.
+CREATE OR REPLACE FUNCTION reconcile_offer_ratings()
+RETURNS INTEGER AS $$
+    WITH actual AS (
+        SELECT o.id, COALESCE(SUM(r.rating), 0) AS rating_sum, COUNT(r.id) AS rating_count
+        FROM offers o
+        LEFT JOIN ratings r ON r.offer_id = o.id
+        GROUP BY o.id
+    ), corrected AS (
+        UPDATE offers o
+        SET rating_sum     = a.rating_sum,
+            rating_count   = a.rating_count,
+            average_rating = CASE
+                WHEN a.rating_count > 0 THEN ROUND(a.rating_sum::NUMERIC / a.rating_count, 2)
+                ELSE 0
+            END
+        FROM actual a
+        WHERE o.id = a.id
+          AND (o.rating_sum <> a.rating_sum OR o.rating_count <> a.rating_count)
+        RETURNING 1
+    )
+    SELECT COUNT(*)::INTEGER FROM corrected
+$$ LANGUAGE sql;
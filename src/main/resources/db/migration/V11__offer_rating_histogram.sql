@@ -0,0 +1,121 @@
+-- Star distribution per offer, maintained with the running sum and count. Deltas are now
+-- expressed per star; the sum and count follow from them.
+ALTER TABLE offers ADD COLUMN IF NOT EXISTS rating_1_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE offers ADD COLUMN IF NOT EXISTS rating_2_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE offers ADD COLUMN IF NOT EXISTS rating_3_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE offers ADD COLUMN IF NOT EXISTS rating_4_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE offers ADD COLUMN IF NOT EXISTS rating_5_count INTEGER NOT NULL DEFAULT 0;
+
+-- Backfill without touching updated_at
+ALTER TABLE offers DISABLE TRIGGER trg_offers_set_updated_at;
+UPDATE offers o
+SET rating_1_count = h.rating_1_count,
+    rating_2_count = h.rating_2_count,
+    rating_3_count = h.rating_3_count,
+    rating_4_count = h.rating_4_count,
+    rating_5_count = h.rating_5_count
+FROM (
+    SELECT offer_id,
+           COUNT(*) FILTER (WHERE rating = 1) AS rating_1_count,
+           COUNT(*) FILTER (WHERE rating = 2) AS rating_2_count,
+           COUNT(*) FILTER (WHERE rating = 3) AS rating_3_count,
+           COUNT(*) FILTER (WHERE rating = 4) AS rating_4_count,
+           COUNT(*) FILTER (WHERE rating = 5) AS rating_5_count
+    FROM ratings
+    GROUP BY offer_id
+) h
+WHERE o.id = h.offer_id;
+ALTER TABLE offers ENABLE TRIGGER trg_offers_set_updated_at;
+
+DROP FUNCTION IF EXISTS add_offer_rating(BIGINT, BIGINT, INTEGER);
+
+-- One row update under the offer's row lock; the right-hand sides see the pre-update values
+CREATE OR REPLACE FUNCTION add_offer_rating_counts(target_offer BIGINT,
+                                                   d1 INTEGER, d2 INTEGER, d3 INTEGER, d4 INTEGER, d5 INTEGER)
+RETURNS VOID AS $$
+    UPDATE offers
+    SET rating_1_count = rating_1_count + d1,
+        rating_2_count = rating_2_count + d2,
+        rating_3_count = rating_3_count + d3,
+        rating_4_count = rating_4_count + d4,
+        rating_5_count = rating_5_count + d5,
+        rating_sum     = rating_sum + d1 + 2 * d2 + 3 * d3 + 4 * d4 + 5 * d5,
+        rating_count   = rating_count + d1 + d2 + d3 + d4 + d5,
+        average_rating = CASE
+            WHEN rating_count + d1 + d2 + d3 + d4 + d5 > 0
+                THEN ROUND((rating_sum + d1 + 2 * d2 + 3 * d3 + 4 * d4 + 5 * d5)::NUMERIC
+                           / (rating_count + d1 + d2 + d3 + d4 + d5), 2)
+            ELSE 0
+        END
+    WHERE id = target_offer
+$$ LANGUAGE sql;
+
+-- Adds (delta = 1) or removes (delta = -1) one rating of the given star value
+CREATE OR REPLACE FUNCTION add_offer_rating_star(target_offer BIGINT, star INTEGER, delta INTEGER)
+RETURNS VOID AS $$
+    SELECT add_offer_rating_counts(target_offer,
+        CASE WHEN star = 1 THEN delta ELSE 0 END,
+        CASE WHEN star = 2 THEN delta ELSE 0 END,
+        CASE WHEN star = 3 THEN delta ELSE 0 END,
+        CASE WHEN star = 4 THEN delta ELSE 0 END,
+        CASE WHEN star = 5 THEN delta ELSE 0 END)
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION apply_offer_rating_delta()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF current_setting('easybody.defer_rating_aggregates', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    -- Hibernate sets every column on update, the trigger fires even when neither changed
+    IF TG_OP = 'UPDATE' AND NEW.rating = OLD.rating AND NEW.offer_id = OLD.offer_id THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM add_offer_rating_star(OLD.offer_id, OLD.rating, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM add_offer_rating_star(NEW.offer_id, NEW.rating, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION reconcile_offer_ratings()
+RETURNS INTEGER AS $$
+    WITH actual AS (
+        SELECT o.id,
+               COUNT(r.id) FILTER (WHERE r.rating = 1) AS rating_1_count,
+               COUNT(r.id) FILTER (WHERE r.rating = 2) AS rating_2_count,
+               COUNT(r.id) FILTER (WHERE r.rating = 3) AS rating_3_count,
+               COUNT(r.id) FILTER (WHERE r.rating = 4) AS rating_4_count,
+               COUNT(r.id) FILTER (WHERE r.rating = 5) AS rating_5_count,
+               COALESCE(SUM(r.rating), 0) AS rating_sum,
+               COUNT(r.id) AS rating_count
+        FROM offers o
+        LEFT JOIN ratings r ON r.offer_id = o.id
+        GROUP BY o.id
+    ), corrected AS (
+        UPDATE offers o
+        SET rating_1_count = a.rating_1_count,
+            rating_2_count = a.rating_2_count,
+            rating_3_count = a.rating_3_count,
+            rating_4_count = a.rating_4_count,
+            rating_5_count = a.rating_5_count,
+            rating_sum     = a.rating_sum,
+            rating_count   = a.rating_count,
+            average_rating = CASE
+                WHEN a.rating_count > 0 THEN ROUND(a.rating_sum::NUMERIC / a.rating_count, 2)
+                ELSE 0
+            END
+        FROM actual a
+        WHERE o.id = a.id
+          AND (o.rating_sum <> a.rating_sum OR o.rating_count <> a.rating_count
+               OR o.rating_1_count <> a.rating_1_count OR o.rating_2_count <> a.rating_2_count
+               OR o.rating_3_count <> a.rating_3_count OR o.rating_4_count <> a.rating_4_count
+               OR o.rating_5_count <> a.rating_5_count)
+        RETURNING 1
+    )
+    SELECT COUNT(*)::INTEGER FROM corrected
+$$ LANGUAGE sql;
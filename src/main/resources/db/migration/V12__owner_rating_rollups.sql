@@ -0,0 +1,138 @@
+-- Rating rollups per gym and PT user over their active, approved offers: the ratings of all
+-- those offers pooled, so an offer with many ratings weighs more than one with a few.
+-- Maintained from the offers' own aggregates, never by scanning ratings.
+ALTER TABLE gyms ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE gyms ADD COLUMN IF NOT EXISTS rating_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE gyms ADD COLUMN IF NOT EXISTS rated_offer_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE gyms ADD COLUMN IF NOT EXISTS average_rating NUMERIC(3,2) NOT NULL DEFAULT 0;
+
+ALTER TABLE pt_users ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE pt_users ADD COLUMN IF NOT EXISTS rating_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE pt_users ADD COLUMN IF NOT EXISTS rated_offer_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE pt_users ADD COLUMN IF NOT EXISTS average_rating NUMERIC(3,2) NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION add_owner_rating(target_gym BIGINT, target_pt_user BIGINT,
+                                            d_sum BIGINT, d_count INTEGER, d_rated INTEGER)
+RETURNS VOID AS $$
+    UPDATE gyms
+    SET rating_sum        = rating_sum + d_sum,
+        rating_count      = rating_count + d_count,
+        rated_offer_count = rated_offer_count + d_rated,
+        average_rating    = CASE
+            WHEN rating_count + d_count > 0 THEN ROUND((rating_sum + d_sum)::NUMERIC / (rating_count + d_count), 2)
+            ELSE 0
+        END
+    WHERE id = target_gym;
+
+    UPDATE pt_users
+    SET rating_sum        = rating_sum + d_sum,
+        rating_count      = rating_count + d_count,
+        rated_offer_count = rated_offer_count + d_rated,
+        average_rating    = CASE
+            WHEN rating_count + d_count > 0 THEN ROUND((rating_sum + d_sum)::NUMERIC / (rating_count + d_count), 2)
+            ELSE 0
+        END
+    WHERE id = target_pt_user;
+$$ LANGUAGE sql;
+
+-- Moves an offer's contribution when its aggregates, visibility or owner change. Ratings
+-- reach the offer through trg_ratings_apply_offer_delta or a write-behind flush, both of
+-- which update these columns.
+CREATE OR REPLACE FUNCTION apply_owner_rating_delta()
+RETURNS TRIGGER AS $$
+DECLARE
+    old_sum BIGINT := 0;
+    old_count INTEGER := 0;
+    new_sum BIGINT := 0;
+    new_count INTEGER := 0;
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.active AND OLD.status = 'APPROVED' THEN
+        old_sum := OLD.rating_sum;
+        old_count := OLD.rating_count;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.active AND NEW.status = 'APPROVED' THEN
+        new_sum := NEW.rating_sum;
+        new_count := NEW.rating_count;
+    END IF;
+
+    IF TG_OP = 'UPDATE'
+       AND OLD.gym_id IS NOT DISTINCT FROM NEW.gym_id
+       AND OLD.pt_user_id IS NOT DISTINCT FROM NEW.pt_user_id THEN
+        IF new_sum <> old_sum OR new_count <> old_count THEN
+            PERFORM add_owner_rating(NEW.gym_id, NEW.pt_user_id, new_sum - old_sum, new_count - old_count,
+                                     (new_count > 0)::INTEGER - (old_count > 0)::INTEGER);
+        END IF;
+        RETURN NULL;
+    END IF;
+
+    IF old_count > 0 THEN
+        PERFORM add_owner_rating(OLD.gym_id, OLD.pt_user_id, -old_sum, -old_count, -1);
+    END IF;
+    IF new_count > 0 THEN
+        PERFORM add_owner_rating(NEW.gym_id, NEW.pt_user_id, new_sum, new_count, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_offers_apply_owner_rating
+AFTER INSERT OR DELETE OR UPDATE OF rating_sum, rating_count, status, active, gym_id, pt_user_id ON offers
+FOR EACH ROW EXECUTE FUNCTION apply_owner_rating_delta();
+
+-- Re-derives every gym and PT rollup from the offers; returns the number of rows corrected
+CREATE OR REPLACE FUNCTION reconcile_owner_ratings()
+RETURNS INTEGER AS $$
+    WITH gym_actual AS (
+        SELECT g.id,
+               COALESCE(SUM(o.rating_sum), 0) AS rating_sum,
+               COALESCE(SUM(o.rating_count), 0) AS rating_count,
+               COUNT(o.id) FILTER (WHERE o.rating_count > 0) AS rated_offer_count
+        FROM gyms g
+        LEFT JOIN offers o ON o.gym_id = g.id AND o.active AND o.status = 'APPROVED'
+        GROUP BY g.id
+    ), gyms_corrected AS (
+        UPDATE gyms g
+        SET rating_sum        = a.rating_sum,
+            rating_count      = a.rating_count,
+            rated_offer_count = a.rated_offer_count,
+            average_rating    = CASE
+                WHEN a.rating_count > 0 THEN ROUND(a.rating_sum::NUMERIC / a.rating_count, 2)
+                ELSE 0
+            END
+        FROM gym_actual a
+        WHERE g.id = a.id
+          AND (g.rating_sum <> a.rating_sum OR g.rating_count <> a.rating_count
+               OR g.rated_offer_count <> a.rated_offer_count)
+        RETURNING 1
+    ), pt_actual AS (
+        SELECT pt.id,
+               COALESCE(SUM(o.rating_sum), 0) AS rating_sum,
+               COALESCE(SUM(o.rating_count), 0) AS rating_count,
+               COUNT(o.id) FILTER (WHERE o.rating_count > 0) AS rated_offer_count
+        FROM pt_users pt
+        LEFT JOIN offers o ON o.pt_user_id = pt.id AND o.active AND o.status = 'APPROVED'
+        GROUP BY pt.id
+    ), pt_users_corrected AS (
+        UPDATE pt_users pt
+        SET rating_sum        = a.rating_sum,
+            rating_count      = a.rating_count,
+            rated_offer_count = a.rated_offer_count,
+            average_rating    = CASE
+                WHEN a.rating_count > 0 THEN ROUND(a.rating_sum::NUMERIC / a.rating_count, 2)
+                ELSE 0
+            END
+        FROM pt_actual a
+        WHERE pt.id = a.id
+          AND (pt.rating_sum <> a.rating_sum OR pt.rating_count <> a.rating_count
+               OR pt.rated_offer_count <> a.rated_offer_count)
+        RETURNING 1
+    )
+    SELECT ((SELECT COUNT(*) FROM gyms_corrected) + (SELECT COUNT(*) FROM pt_users_corrected))::INTEGER
+$$ LANGUAGE sql;
+
+-- Backfill without touching updated_at
+ALTER TABLE gyms DISABLE TRIGGER trg_gyms_set_updated_at;
+ALTER TABLE pt_users DISABLE TRIGGER trg_pt_users_set_updated_at;
+SELECT reconcile_owner_ratings();
+ALTER TABLE gyms ENABLE TRIGGER trg_gyms_set_updated_at;
+ALTER TABLE pt_users ENABLE TRIGGER trg_pt_users_set_updated_at;
@@ -0,0 +1,138 @@
+-- Write-behind deltas (app.ratings.write-behind.enabled) are kept in the database instead of
+-- in application memory: a deferred rating change records its star deltas here in its own
+-- transaction, and any instance's flush applies and removes them. Nothing is lost in a
+-- crash, and a reconcile on one instance no longer counts deltas another still holds.
+CREATE TABLE IF NOT EXISTS rating_deltas (
+    id BIGSERIAL PRIMARY KEY,
+    offer_id BIGINT NOT NULL,
+    star SMALLINT NOT NULL CHECK (star BETWEEN 1 AND 5),
+    delta SMALLINT NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION apply_offer_rating_delta()
+RETURNS TRIGGER AS $$
+DECLARE
+    deferred BOOLEAN := current_setting('easybody.defer_rating_aggregates', true) = 'on';
+BEGIN
+    -- Hibernate sets every column on update, the trigger fires even when neither changed
+    IF TG_OP = 'UPDATE' AND NEW.rating = OLD.rating AND NEW.offer_id = OLD.offer_id THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        IF deferred THEN
+            INSERT INTO rating_deltas (offer_id, star, delta) VALUES (OLD.offer_id, OLD.rating, -1);
+        ELSE
+            PERFORM add_offer_rating_star(OLD.offer_id, OLD.rating, -1);
+        END IF;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        IF deferred THEN
+            INSERT INTO rating_deltas (offer_id, star, delta) VALUES (NEW.offer_id, NEW.rating, 1);
+        ELSE
+            PERFORM add_offer_rating_star(NEW.offer_id, NEW.rating, 1);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Applies and removes every pending delta, per offer in id order so concurrent writers lock
+-- offers in the same order. Returns the offers whose aggregates moved. Serialized with
+-- reconcile_offer_ratings(): a reconcile between a flush's delete and its update would
+-- count those deltas twice.
+CREATE OR REPLACE FUNCTION flush_rating_deltas()
+RETURNS SETOF BIGINT AS $$
+DECLARE
+    pending RECORD;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('easybody.rating_deltas'));
+    FOR pending IN
+        WITH taken AS (
+            DELETE FROM rating_deltas
+            RETURNING offer_id, star, delta
+        )
+        SELECT offer_id,
+               COALESCE(SUM(delta) FILTER (WHERE star = 1), 0)::INTEGER AS d1,
+               COALESCE(SUM(delta) FILTER (WHERE star = 2), 0)::INTEGER AS d2,
+               COALESCE(SUM(delta) FILTER (WHERE star = 3), 0)::INTEGER AS d3,
+               COALESCE(SUM(delta) FILTER (WHERE star = 4), 0)::INTEGER AS d4,
+               COALESCE(SUM(delta) FILTER (WHERE star = 5), 0)::INTEGER AS d5
+        FROM taken
+        GROUP BY offer_id
+        ORDER BY offer_id
+    LOOP
+        PERFORM add_offer_rating_counts(pending.offer_id, pending.d1, pending.d2, pending.d3, pending.d4, pending.d5);
+        RETURN NEXT pending.offer_id;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Re-derives aggregates from ratings, less the deltas still waiting for a flush: the flush
+-- adds those afterwards. Returns the number of offers corrected.
+CREATE OR REPLACE FUNCTION reconcile_offer_ratings()
+RETURNS INTEGER AS $$
+DECLARE
+    corrected_count INTEGER;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('easybody.rating_deltas'));
+    WITH pending AS (
+        SELECT offer_id,
+               COALESCE(SUM(delta) FILTER (WHERE star = 1), 0) AS p1,
+               COALESCE(SUM(delta) FILTER (WHERE star = 2), 0) AS p2,
+               COALESCE(SUM(delta) FILTER (WHERE star = 3), 0) AS p3,
+               COALESCE(SUM(delta) FILTER (WHERE star = 4), 0) AS p4,
+               COALESCE(SUM(delta) FILTER (WHERE star = 5), 0) AS p5
+        FROM rating_deltas
+        GROUP BY offer_id
+    ), rated AS (
+        SELECT o.id,
+               COUNT(r.id) FILTER (WHERE r.rating = 1) AS c1,
+               COUNT(r.id) FILTER (WHERE r.rating = 2) AS c2,
+               COUNT(r.id) FILTER (WHERE r.rating = 3) AS c3,
+               COUNT(r.id) FILTER (WHERE r.rating = 4) AS c4,
+               COUNT(r.id) FILTER (WHERE r.rating = 5) AS c5
+        FROM offers o
+        LEFT JOIN ratings r ON r.offer_id = o.id
+        GROUP BY o.id
+    ), actual AS (
+        SELECT r.id,
+               r.c1 - COALESCE(p.p1, 0) AS rating_1_count,
+               r.c2 - COALESCE(p.p2, 0) AS rating_2_count,
+               r.c3 - COALESCE(p.p3, 0) AS rating_3_count,
+               r.c4 - COALESCE(p.p4, 0) AS rating_4_count,
+               r.c5 - COALESCE(p.p5, 0) AS rating_5_count
+        FROM rated r
+        LEFT JOIN pending p ON p.offer_id = r.id
+    ), totals AS (
+        SELECT a.*,
+               a.rating_1_count + 2 * a.rating_2_count + 3 * a.rating_3_count
+                   + 4 * a.rating_4_count + 5 * a.rating_5_count AS rating_sum,
+               a.rating_1_count + a.rating_2_count + a.rating_3_count
+                   + a.rating_4_count + a.rating_5_count AS rating_count
+        FROM actual a
+    ), corrected AS (
+        UPDATE offers o
+        SET rating_1_count = t.rating_1_count,
+            rating_2_count = t.rating_2_count,
+            rating_3_count = t.rating_3_count,
+            rating_4_count = t.rating_4_count,
+            rating_5_count = t.rating_5_count,
+            rating_sum     = t.rating_sum,
+            rating_count   = t.rating_count,
+            average_rating = CASE
+                WHEN t.rating_count > 0 THEN ROUND(t.rating_sum::NUMERIC / t.rating_count, 2)
+                ELSE 0
+            END
+        FROM totals t
+        WHERE o.id = t.id
+          AND (o.rating_sum <> t.rating_sum OR o.rating_count <> t.rating_count
+               OR o.rating_1_count <> t.rating_1_count OR o.rating_2_count <> t.rating_2_count
+               OR o.rating_3_count <> t.rating_3_count OR o.rating_4_count <> t.rating_4_count
+               OR o.rating_5_count <> t.rating_5_count)
+        RETURNING 1
+    )
+    SELECT COUNT(*)::INTEGER INTO corrected_count FROM corrected;
+    RETURN corrected_count;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,53 @@
+-- Full-text search document for offers, accent-insensitive so "phong gym" matches "phòng gym"
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() is only STABLE; wrap it so it can feed an indexed column
+CREATE OR REPLACE FUNCTION f_unaccent(input TEXT)
+RETURNS TEXT AS $$
+    SELECT public.unaccent('public.unaccent', input)
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Title outranks description; 'simple' keeps Vietnamese words intact, 'english' adds stemming
+CREATE OR REPLACE FUNCTION offer_search_document(title TEXT, description TEXT)
+RETURNS tsvector AS $$
+    SELECT setweight(to_tsvector('simple', f_unaccent(COALESCE(title, ''))), 'A')
+        || setweight(to_tsvector('english', f_unaccent(COALESCE(title, ''))), 'A')
+        || setweight(to_tsvector('simple', f_unaccent(COALESCE(description, ''))), 'B')
+        || setweight(to_tsvector('english', f_unaccent(COALESCE(description, ''))), 'B')
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+-- Matches either the literal (unaccented) words or their English stems
+CREATE OR REPLACE FUNCTION offer_search_query(search_text TEXT)
+RETURNS tsquery AS $$
+    SELECT plainto_tsquery('simple', f_unaccent(COALESCE(search_text, '')))
+        || plainto_tsquery('english', f_unaccent(COALESCE(search_text, '')))
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+ALTER TABLE offers ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE OR REPLACE FUNCTION refresh_offer_search_vector()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT'
+       OR NEW.title IS DISTINCT FROM OLD.title
+       OR NEW.description IS DISTINCT FROM OLD.description THEN
+        NEW.search_vector := offer_search_document(NEW.title, NEW.description);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_offers_search_vector ON offers;
+CREATE TRIGGER trg_offers_search_vector
+BEFORE INSERT OR UPDATE OF title, description ON offers
+FOR EACH ROW
+EXECUTE FUNCTION refresh_offer_search_vector();
+
+-- Backfill without touching updated_at
+ALTER TABLE offers DISABLE TRIGGER trg_offers_set_updated_at;
+UPDATE offers
+SET search_vector = offer_search_document(title, description)
+WHERE search_vector IS NULL;
+ALTER TABLE offers ENABLE TRIGGER trg_offers_set_updated_at;
+
+CREATE INDEX IF NOT EXISTS idx_offers_search_vector ON offers USING GIN (search_vector);
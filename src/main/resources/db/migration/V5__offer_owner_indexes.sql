@@ -0,0 +1,5 @@
+-- Geo searches start from the locations inside the search box and walk to offers
+-- through their gym or PT; each hop needs an index on the referencing column
+CREATE INDEX IF NOT EXISTS idx_pt_users_location_id ON pt_users (location_id);
+CREATE INDEX IF NOT EXISTS idx_offers_gym_id ON offers (gym_id);
+CREATE INDEX IF NOT EXISTS idx_offers_pt_user_id ON offers (pt_user_id);
@@ -0,0 +1,24 @@
+-- Radius queries work in meters on the sphere. Casting coordinates to geography inside
+-- ST_DWithin/<-> hides them from the geometry GiST index, so keep a geography copy
+-- of every point with an index of its own.
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS geog geography(Point,4326);
+
+CREATE OR REPLACE FUNCTION sync_location_geometry()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.coordinates := ST_SetSRID(ST_MakePoint(NEW.longitude, NEW.latitude), 4326);
+    NEW.geog := NEW.coordinates::geography;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Backfill without touching updated_at; the sync trigger fills geog
+ALTER TABLE locations DISABLE TRIGGER trg_locations_set_updated_at;
+UPDATE locations
+SET geog = coordinates::geography
+WHERE geog IS NULL;
+ALTER TABLE locations ENABLE TRIGGER trg_locations_set_updated_at;
+
+ALTER TABLE locations ALTER COLUMN geog SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_locations_geog ON locations USING GIST (geog);
@@ -0,0 +1,21 @@
+-- Public offer listings always filter on active AND status = 'APPROVED' and page through
+-- one sort key with id as tiebreaker. Partial indexes hold only those rows, in that order,
+-- so a page is a short index range scan, forwards or backwards, offset or keyset.
+CREATE INDEX IF NOT EXISTS idx_offers_public_created_at
+    ON offers (created_at, id) WHERE active AND status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_offers_public_price
+    ON offers (price, id) WHERE active AND status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_offers_public_average_rating
+    ON offers (average_rating, id) WHERE active AND status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_offers_public_rating_count
+    ON offers (rating_count, id) WHERE active AND status = 'APPROVED';
+
+-- A gym's or PT's active offers, newest first (profile pages, gymId/ptUserId searches)
+CREATE INDEX IF NOT EXISTS idx_offers_gym_active_created_at
+    ON offers (gym_id, created_at, id) WHERE active;
+CREATE INDEX IF NOT EXISTS idx_offers_pt_user_active_created_at
+    ON offers (pt_user_id, created_at, id) WHERE active;
+
+-- Moderation queue and per-status listings by age; supersedes the single-column status index
+CREATE INDEX IF NOT EXISTS idx_offers_status_created_at ON offers (status, created_at);
+DROP INDEX IF EXISTS idx_offers_status;
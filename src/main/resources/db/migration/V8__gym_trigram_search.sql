@@ -0,0 +1,16 @@
+-- Gym search matches any part of the name or city, accent-insensitive. A leading-wildcard
+-- LIKE cannot use a btree, so index trigrams of the normalized text instead.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Same normalization for the indexed columns and the search term
+CREATE OR REPLACE FUNCTION gym_search_text(input TEXT)
+RETURNS TEXT AS $$
+    SELECT lower(f_unaccent(COALESCE(input, '')))
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+-- Only active gyms are ever searched
+CREATE INDEX IF NOT EXISTS idx_gyms_name_trgm ON gyms
+    USING GIN (gym_search_text(name) gin_trgm_ops) WHERE active = true;
+
+CREATE INDEX IF NOT EXISTS idx_gyms_city_trgm ON gyms
+    USING GIN (gym_search_text(city) gin_trgm_ops) WHERE active = true;
@@ -0,0 +1,54 @@
+-- Offer rating aggregates were recomputed from every rating of the offer, twice per change:
+-- V0 and V2 both installed refresh_offer_rating() triggers. Keep a running sum instead and
+-- apply each change as a delta, so a rating write costs the same however many ratings exist.
+DROP TRIGGER IF EXISTS trg_refresh_offer_rating ON ratings;
+DROP TRIGGER IF EXISTS trg_refresh_offer_rating_ins ON ratings;
+DROP TRIGGER IF EXISTS trg_refresh_offer_rating_upd ON ratings;
+DROP TRIGGER IF EXISTS trg_refresh_offer_rating_del ON ratings;
+DROP FUNCTION IF EXISTS refresh_offer_rating();
+
+ALTER TABLE offers ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0;
+
+-- Backfill without touching updated_at
+ALTER TABLE offers DISABLE TRIGGER trg_offers_set_updated_at;
+UPDATE offers o
+SET rating_sum     = COALESCE((SELECT SUM(r.rating) FROM ratings r WHERE r.offer_id = o.id), 0),
+    rating_count   = (SELECT COUNT(*) FROM ratings r WHERE r.offer_id = o.id),
+    average_rating = COALESCE((SELECT ROUND(AVG(r.rating), 2) FROM ratings r WHERE r.offer_id = o.id), 0);
+ALTER TABLE offers ENABLE TRIGGER trg_offers_set_updated_at;
+
+-- One row update under the offer's row lock; the right-hand sides see the pre-update values
+CREATE OR REPLACE FUNCTION add_offer_rating(target_offer BIGINT, sum_delta BIGINT, count_delta INTEGER)
+RETURNS VOID AS $$
+    UPDATE offers
+    SET rating_sum     = rating_sum + sum_delta,
+        rating_count   = rating_count + count_delta,
+        average_rating = CASE
+            WHEN rating_count + count_delta > 0
+                THEN ROUND((rating_sum + sum_delta)::NUMERIC / (rating_count + count_delta), 2)
+            ELSE 0
+        END
+    WHERE id = target_offer
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION apply_offer_rating_delta()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM add_offer_rating(NEW.offer_id, NEW.rating, 1);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM add_offer_rating(OLD.offer_id, -OLD.rating, -1);
+    ELSIF NEW.offer_id IS DISTINCT FROM OLD.offer_id THEN
+        PERFORM add_offer_rating(OLD.offer_id, -OLD.rating, -1);
+        PERFORM add_offer_rating(NEW.offer_id, NEW.rating, 1);
+    ELSIF NEW.rating IS DISTINCT FROM OLD.rating THEN
+        PERFORM add_offer_rating(NEW.offer_id, NEW.rating - OLD.rating, 0);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_ratings_apply_offer_delta
+AFTER INSERT OR DELETE OR UPDATE OF rating, offer_id ON ratings
+FOR EACH ROW
+EXECUTE FUNCTION apply_offer_rating_delta();
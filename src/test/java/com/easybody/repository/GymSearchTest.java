@@ -0,0 +1,70 @@
+package com.easybody.repository;
+
+import com.easybody.model.entity.Gym;
+import com.easybody.support.CapturedSql;
+import com.easybody.support.PostgisRepositoryTest;
+import com.easybody.support.QueryPlans;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Gym text search through the V8 trigram indexes: active gyms only, accent-insensitive,
+ * best match first.
+ */
+class GymSearchTest extends PostgisRepositoryTest {
+
+    @Autowired
+    private GymRepository gymRepository;
+
+    @Test
+    void inactiveGymsNeverMatch() {
+        long active = testData.gym("Sunrise Yoga", "Hà Nội", null, true);
+        testData.gym("Sunset Yoga", "Hà Nội", null, false);
+        // Matched on city alone, which the old query let through whatever its state
+        testData.gym("Old Barn", "Yogyakarta Yoga", null, false);
+
+        assertThat(search("yoga")).containsExactly(active);
+    }
+
+    @Test
+    void matchesCityWithoutAccents() {
+        long danang = testData.gym("Beach Fitness", "Đà Nẵng", null, true);
+        testData.gym("Lake Fitness", "Hà Nội", null, true);
+
+        assertThat(search("da nang")).containsExactly(danang);
+    }
+
+    @Test
+    void ranksWholeWordMatchesFirst() {
+        // Both contain the term; only one has it as a whole word
+        long partial = testData.gym("Yogalates Hub", "Hà Nội", null, true);
+        long whole = testData.gym("Sunrise Yoga", "Hà Nội", null, true);
+        testData.gym("Iron Temple", "Hà Nội", null, true);
+
+        assertThat(search("yoga")).containsExactly(whole, partial);
+    }
+
+    @Test
+    void usesTrigramIndexesOnNameAndCity() {
+        testData.gym("Sunrise Yoga", "Hà Nội", null, true);
+        search("yoga");
+
+        QueryPlans.preferIndexes(jdbcTemplate);
+        String plan = QueryPlans.explain(jdbcTemplate, CapturedSql.last(sql -> sql.contains("word_similarity")));
+
+        assertThat(plan).contains("idx_gyms_name_trgm", "idx_gyms_city_trgm");
+        assertThat(plan).doesNotContain("Seq Scan on gyms");
+    }
+
+    // Same term and pattern GymService.searchGyms passes
+    private List<Long> search(String term) {
+        return gymRepository.searchGyms(term, "%" + term + "%", PageRequest.of(0, 20)).stream()
+                .map(Gym::getId)
+                .toList();
+    }
+}
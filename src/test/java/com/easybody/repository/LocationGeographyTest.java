@@ -0,0 +1,80 @@
+package com.easybody.repository;
+
+import com.easybody.support.CapturedSql;
+import com.easybody.support.PostgisRepositoryTest;
+import com.easybody.support.QueryPlans;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * {@code locations.geog} (V6): kept in sync with latitude and longitude by
+ * {@code sync_location_geometry()}, and the column every radius lookup filters on.
+ */
+class LocationGeographyTest extends PostgisRepositoryTest {
+
+    private static final double LATITUDE = 21.0285;
+    private static final double LONGITUDE = 105.8542;
+    private static final double RADIUS_METERS = 5_000;
+
+    @Autowired
+    private GymRepository gymRepository;
+
+    @Autowired
+    private PTUserRepository ptUserRepository;
+
+    @Test
+    void triggerKeepsGeographyInSyncWithCoordinates() {
+        long locationId = testData.location(LATITUDE, LONGITUDE);
+        assertThat(geographyOf(locationId)).containsExactly(LATITUDE, LONGITUDE);
+
+        jdbcTemplate.update("UPDATE locations SET latitude = ?, longitude = ? WHERE id = ?", 10.7769, 106.7009, locationId);
+        assertThat(geographyOf(locationId)).containsExactly(10.7769, 106.7009);
+    }
+
+    @Test
+    void gymRadiusLookupUsesTheGeographyIndex() {
+        long near = testData.gym(testData.location(LATITUDE + 0.009, LONGITUDE));
+        testData.gym(testData.location(LATITUDE + 0.45, LONGITUDE));
+
+        List<NearbyMatch> matches = gymRepository.findGymsNearLocation(LATITUDE, LONGITUDE, RADIUS_METERS,
+                PageRequest.of(0, 20)).getContent();
+
+        assertThat(matches).extracting(NearbyMatch::getId).containsExactly(near);
+        assertThat(matches.get(0).getDistanceKm()).isCloseTo(1.0, within(0.01));
+        assertUsesGeographyIndex(CapturedSql.last(sql -> sql.contains("FROM gyms g") && sql.contains("<->")));
+    }
+
+    @Test
+    void ptRadiusLookupUsesTheGeographyIndex() {
+        long near = testData.ptUser(testData.location(LATITUDE + 0.009, LONGITUDE));
+        testData.ptUser(testData.location(LATITUDE + 0.45, LONGITUDE));
+
+        List<NearbyMatch> matches = ptUserRepository.findPTUsersNearLocation(LATITUDE, LONGITUDE, RADIUS_METERS,
+                PageRequest.of(0, 20)).getContent();
+
+        assertThat(matches).extracting(NearbyMatch::getId).containsExactly(near);
+        assertThat(matches.get(0).getDistanceKm()).isCloseTo(1.0, within(0.01));
+        assertUsesGeographyIndex(CapturedSql.last(sql -> sql.contains("FROM pt_users pt") && sql.contains("<->")));
+    }
+
+    private List<Double> geographyOf(long locationId) {
+        Map<String, Object> point = jdbcTemplate.queryForMap(
+                "SELECT ST_Y(geog::geometry) AS latitude, ST_X(geog::geometry) AS longitude FROM locations WHERE id = ?",
+                locationId);
+        return List.of((Double) point.get("latitude"), (Double) point.get("longitude"));
+    }
+
+    private void assertUsesGeographyIndex(String sql) {
+        QueryPlans.preferIndexes(jdbcTemplate);
+        String plan = QueryPlans.explain(jdbcTemplate, sql);
+        assertThat(plan).contains("idx_locations_geog");
+        assertThat(plan).doesNotContain("Seq Scan on locations");
+    }
+}
@@ -0,0 +1,110 @@
+package com.easybody.repository;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.OfferType;
+import com.easybody.model.enums.Role;
+import com.easybody.support.CapturedSql;
+import com.easybody.support.PostgisRepositoryTest;
+import com.easybody.support.QueryPlans;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Geo offer search: one branch per owner kind, each driven by the GiST index on
+ * {@code locations.geog}. See docs/backend/QUERY_PLANS.md.
+ */
+class NearbyOfferSearchTest extends PostgisRepositoryTest {
+
+    private static final double LATITUDE = 21.0285;
+    private static final double LONGITUDE = 105.8542;
+    private static final double RADIUS_METERS = 5_000;
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Test
+    void findsGymAndPtOffersWithinTheRadiusNearestFirst() {
+        long nearGym = testData.gym(testData.location(LATITUDE + 0.009, LONGITUDE));       // ~1 km
+        long farGym = testData.gym(testData.location(LATITUDE + 0.45, LONGITUDE));         // ~50 km
+        long nearPt = testData.ptUser(testData.location(LATITUDE, LONGITUDE + 0.02));      // ~2 km
+        long nearGymOffer = testData.offer(nearGym, null, OfferStatus.APPROVED);
+        long nearPtOffer = testData.offer(null, nearPt, OfferStatus.APPROVED);
+        testData.offer(farGym, null, OfferStatus.APPROVED);
+        // Located at its gym, not at its PT
+        testData.offer(farGym, nearPt, OfferStatus.APPROVED);
+
+        List<Long> ids = searchNearby().stream().map(OfferSearchRow::id).toList();
+
+        assertThat(ids).containsExactly(nearGymOffer, nearPtOffer);
+    }
+
+    @Test
+    void returnsEachOffersDistance() {
+        testData.offer(testData.gym(testData.location(LATITUDE + 0.009, LONGITUDE)), null, OfferStatus.APPROVED);
+
+        assertThat(searchNearby()).singleElement()
+                .satisfies(row -> assertThat(row.distanceKm()).isCloseTo(1.0, within(0.01)));
+    }
+
+    @Test
+    void combinesTheRadiusWithTheOtherFilters() {
+        long nearGym = testData.gym(testData.location(LATITUDE + 0.009, LONGITUDE));
+        long nearPt = testData.ptUser(testData.location(LATITUDE, LONGITUDE + 0.02));
+        long farGym = testData.gym(testData.location(LATITUDE + 0.45, LONGITUDE));
+        long match = testData.offer(nearGym, null, OfferStatus.APPROVED, true, new BigDecimal("50.00"));
+        long expensive = testData.offer(nearGym, null, OfferStatus.APPROVED, true, new BigDecimal("500.00"));
+        long unrated = testData.offer(nearGym, null, OfferStatus.APPROVED, true, new BigDecimal("50.00"));
+        long ptOffer = testData.offer(null, nearPt, OfferStatus.APPROVED, true, new BigDecimal("50.00"));
+        long far = testData.offer(farGym, null, OfferStatus.APPROVED, true, new BigDecimal("50.00"));
+        for (long offer : List.of(match, expensive, ptOffer, far)) {
+            testData.rating(offer, testData.user(Role.CLIENT_USER), 5);
+        }
+        testData.rating(unrated, testData.user(Role.CLIENT_USER), 2);
+
+        OfferSearchRequest request = OfferSearchRequest.builder()
+                .latitude(LATITUDE)
+                .longitude(LONGITUDE)
+                .maxPrice(new BigDecimal("100"))
+                .minRating(new BigDecimal("4"))
+                .offerType(OfferType.GYM_OFFER)
+                .build();
+        List<Long> ids = offerRepository.search(request, RADIUS_METERS, OfferSortField.DISTANCE, Sort.Direction.ASC,
+                Instant.now(), PageRequest.of(0, 20)).map(OfferSearchRow::id).getContent();
+
+        assertThat(ids).containsExactly(match);
+    }
+
+    @Test
+    void bothBranchesUseTheGeographyIndex() {
+        testData.offer(testData.gym(testData.location(LATITUDE, LONGITUDE)), null, OfferStatus.APPROVED);
+        testData.offer(null, testData.ptUser(testData.location(LATITUDE, LONGITUDE)), OfferStatus.APPROVED);
+        searchNearby();
+
+        QueryPlans.preferIndexes(jdbcTemplate);
+        String plan = QueryPlans.explain(jdbcTemplate, CapturedSql.last(sql -> sql.contains("UNION ALL")
+                && sql.contains("sort_value")));
+
+        assertThat(plan).contains("idx_locations_geog");
+        assertThat(plan).doesNotContain("Seq Scan on locations", "Seq Scan on offers");
+    }
+
+    private List<OfferSearchRow> searchNearby() {
+        OfferSearchRequest request = OfferSearchRequest.builder()
+                .latitude(LATITUDE)
+                .longitude(LONGITUDE)
+                .build();
+        return offerRepository.search(request, RADIUS_METERS, OfferSortField.DISTANCE, Sort.Direction.ASC,
+                Instant.now(), PageRequest.of(0, 20)).getContent();
+    }
+}
@@ -0,0 +1,95 @@
+package com.easybody.repository;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.OfferType;
+import com.easybody.model.enums.Role;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Facet counts of an offer search: per offer type, price bucket and rating band, each
+ * computed under every filter of the search except its own.
+ */
+class OfferFacetCountTest extends PostgisRepositoryTest {
+
+    // Far from the seed data, so only the fixtures match
+    private static final double LATITUDE = -45.0;
+    private static final double LONGITUDE = 170.0;
+    private static final double RADIUS_METERS = 5_000;
+
+    private static final List<BigDecimal> PRICE_BREAKS = List.of(new BigDecimal("100"), new BigDecimal("200"));
+    private static final List<BigDecimal> RATING_BANDS = List.of(new BigDecimal("4"), new BigDecimal("3"));
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @BeforeEach
+    void insertOffers() {
+        long gymId = testData.gym(testData.location(LATITUDE + 0.01, LONGITUDE));
+        long ptUserId = testData.ptUser(testData.location(LATITUDE, LONGITUDE + 0.01));
+        offer(gymId, null, "50.00", 5);
+        offer(gymId, null, "150.00", 3);
+        offer(gymId, null, "300.00", null);
+        offer(null, ptUserId, "50.00", 4);
+        offer(null, ptUserId, "150.00", null);
+        // Outside the radius
+        offer(testData.gym(testData.location(LATITUDE + 1, LONGITUDE)), null, "50.00", 5);
+    }
+
+    @Test
+    void countsEveryFacetOfTheSearch() {
+        OfferFacetCounts counts = count(nearby().build());
+
+        assertThat(counts.offerTypes()).isEqualTo(Map.of(OfferType.GYM_OFFER, 3L, OfferType.PT_OFFER, 2L));
+        assertThat(counts.priceBuckets()).containsExactly(2L, 2L, 1L);
+        assertThat(counts.ratingBands()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void offerTypeFilterNarrowsTheOtherFacetsOnly() {
+        OfferFacetCounts counts = count(nearby().offerType(OfferType.GYM_OFFER).build());
+
+        assertThat(counts.offerTypes()).isEqualTo(Map.of(OfferType.GYM_OFFER, 3L, OfferType.PT_OFFER, 2L));
+        assertThat(counts.priceBuckets()).containsExactly(1L, 1L, 1L);
+        assertThat(counts.ratingBands()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void priceAndRatingFiltersNarrowTheOtherFacetsOnly() {
+        OfferFacetCounts counts = count(nearby()
+                .maxPrice(new BigDecimal("100"))
+                .minRating(new BigDecimal("4"))
+                .build());
+
+        // Offers under 100 rated 4 or more: one gym and one PT offer
+        assertThat(counts.offerTypes()).isEqualTo(Map.of(OfferType.GYM_OFFER, 1L, OfferType.PT_OFFER, 1L));
+        // Rated 4 or more, any price
+        assertThat(counts.priceBuckets()).containsExactly(2L, 0L, 0L);
+        // Under 100, any rating
+        assertThat(counts.ratingBands()).containsExactly(2L, 2L);
+    }
+
+    private void offer(Long gymId, Long ptUserId, String price, Integer rating) {
+        long offerId = testData.offer(gymId, ptUserId, OfferStatus.APPROVED, true, new BigDecimal(price));
+        if (rating != null) {
+            testData.rating(offerId, testData.user(Role.CLIENT_USER), rating);
+        }
+    }
+
+    private static OfferSearchRequest.OfferSearchRequestBuilder nearby() {
+        return OfferSearchRequest.builder().latitude(LATITUDE).longitude(LONGITUDE);
+    }
+
+    private OfferFacetCounts count(OfferSearchRequest request) {
+        return offerRepository.countFacets(request, RADIUS_METERS, PRICE_BREAKS, RATING_BANDS);
+    }
+}
@@ -0,0 +1,76 @@
+package com.easybody.repository;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Offer text search on the V4 {@code search_vector}: accent-insensitive, English stems as
+ * well as literal words, title matches ranked above description matches.
+ */
+class OfferFullTextSearchTest extends PostgisRepositoryTest {
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    private long gymId;
+
+    @BeforeEach
+    void insertGym() {
+        // Every offer below belongs to this gym, so the seed offers never match
+        gymId = testData.gym(null);
+    }
+
+    @Test
+    void unaccentedQueryMatchesAccentedText() {
+        long accented = offer("Phòng gym Hà Nội", "Thiết bị hiện đại");
+        offer("Boxing class", "Heavy bags and sparring");
+
+        assertThat(search("phong gym")).containsExactly(accented);
+    }
+
+    @Test
+    void matchesEnglishWordForms() {
+        long classes = offer("Morning yoga classes", "Stretching for beginners");
+        offer("Boxing", "Heavy bags");
+
+        assertThat(search("class")).containsExactly(classes);
+        assertThat(search("stretch")).containsExactly(classes);
+    }
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() {
+        long inDescription = offer("Evening session", "Held in the phòng gym on the third floor");
+        long inTitle = offer("Phòng gym membership", "Monthly pass");
+        offer("Swimming", "Olympic pool");
+
+        assertThat(search("phong gym")).containsExactly(inTitle, inDescription);
+    }
+
+    private long offer(String title, String description) {
+        long offerId = testData.offer(gymId, null, OfferStatus.APPROVED);
+        // refresh_offer_search_vector() rebuilds the document from the new text
+        jdbcTemplate.update("UPDATE offers SET title = ?, description = ? WHERE id = ?", title, description, offerId);
+        return offerId;
+    }
+
+    // Relevance, as searchOffers defaults to for text searches
+    private List<Long> search(String query) {
+        OfferSearchRequest request = OfferSearchRequest.builder().gymId(gymId).searchQuery(query).build();
+        return offerRepository.search(request, null, OfferSortField.RELEVANCE, Sort.Direction.DESC, Instant.now(),
+                        PageRequest.of(0, 20)).stream()
+                .map(OfferSearchRow::id)
+                .toList();
+    }
+}
@@ -0,0 +1,135 @@
+package com.easybody.repository;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.support.CapturedSql;
+import com.easybody.support.PostgisRepositoryTest;
+import com.easybody.support.QueryPlans;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each offer listing query and the V7 index its plan must use, as tabled in
+ * docs/backend/QUERY_PLANS.md. Plans are taken from the SQL the repository methods sent.
+ */
+class OfferListingIndexTest extends PostgisRepositoryTest {
+
+    private static final Pageable NEWEST_FIRST = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    private final List<Long> gymIds = new ArrayList<>();
+    private final List<Long> ptUserIds = new ArrayList<>();
+
+    @BeforeEach
+    void insertOffers() {
+        for (int i = 0; i < 20; i++) {
+            gymIds.add(testData.gym(null));
+            ptUserIds.add(testData.ptUser(null));
+        }
+        // Mostly public offers, some pending, rejected or inactive, spread over the owners
+        PreparedStatementSetter owners = ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", gymIds.toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", ptUserIds.toArray()));
+        };
+        jdbcTemplate.update(
+                "INSERT INTO offers (title, description, offer_type, gym_id, pt_user_id, price, status, active, created_at) " +
+                "SELECT 'Offer ' || i, 'Bulk offer', " +
+                "       CASE WHEN i % 2 = 0 THEN 'GYM_OFFER' ELSE 'PT_OFFER' END, " +
+                "       CASE WHEN i % 2 = 0 THEN (?::bigint[])[1 + i % 20] END, " +
+                "       CASE WHEN i % 2 = 1 THEN (?::bigint[])[1 + i % 20] END, " +
+                "       10 + i % 490, " +
+                "       CASE i % 10 WHEN 0 THEN 'PENDING' WHEN 1 THEN 'REJECTED' ELSE 'APPROVED' END, " +
+                "       i % 20 <> 2, " +
+                "       NOW() - i * INTERVAL '1 minute' " +
+                "FROM generate_series(1, 4000) AS i",
+                owners);
+        jdbcTemplate.execute("ANALYZE offers");
+    }
+
+    @Test
+    void searchByCreatedAtUsesPublicCreatedAtIndex() {
+        search(OfferSearchRequest.builder().build(), OfferSortField.CREATED_AT, Sort.Direction.DESC);
+        assertRowQueryUses("idx_offers_public_created_at");
+    }
+
+    @Test
+    void searchByPriceUsesPublicPriceIndex() {
+        search(OfferSearchRequest.builder().build(), OfferSortField.PRICE, Sort.Direction.ASC);
+        assertRowQueryUses("idx_offers_public_price");
+    }
+
+    @Test
+    void searchByAverageRatingUsesPublicAverageRatingIndex() {
+        search(OfferSearchRequest.builder().build(), OfferSortField.AVERAGE_RATING, Sort.Direction.DESC);
+        assertRowQueryUses("idx_offers_public_average_rating");
+    }
+
+    @Test
+    void searchByRatingCountUsesPublicRatingCountIndex() {
+        search(OfferSearchRequest.builder().build(), OfferSortField.RATING_COUNT, Sort.Direction.DESC);
+        assertRowQueryUses("idx_offers_public_rating_count");
+    }
+
+    @Test
+    void searchByGymUsesGymActiveIndex() {
+        search(OfferSearchRequest.builder().gymId(gymIds.get(0)).build(), OfferSortField.CREATED_AT, Sort.Direction.DESC);
+        assertRowQueryUses("idx_offers_gym_active_created_at");
+    }
+
+    @Test
+    void searchByPtUserUsesPtUserActiveIndex() {
+        search(OfferSearchRequest.builder().ptUserId(ptUserIds.get(0)).build(), OfferSortField.CREATED_AT,
+                Sort.Direction.DESC);
+        assertRowQueryUses("idx_offers_pt_user_active_created_at");
+    }
+
+    @Test
+    void gymActiveOffersUseGymActiveIndex() {
+        offerRepository.findByGymIdAndActiveTrue(gymIds.get(0), NEWEST_FIRST);
+        assertRowQueryUses("idx_offers_gym_active_created_at");
+    }
+
+    @Test
+    void ptUserActiveOffersUsePtUserActiveIndex() {
+        offerRepository.findByPtUserIdAndActiveTrue(ptUserIds.get(0), NEWEST_FIRST);
+        assertRowQueryUses("idx_offers_pt_user_active_created_at");
+    }
+
+    @Test
+    void pendingQueueUsesStatusCreatedAtIndex() {
+        offerRepository.findByStatus(OfferStatus.PENDING, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+        assertRowQueryUses("idx_offers_status_created_at");
+    }
+
+    @Test
+    void activeOffersByStatusUseStatusCreatedAtIndex() {
+        offerRepository.findByStatusAndActiveTrue(OfferStatus.APPROVED,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+        assertRowQueryUses("idx_offers_status_created_at");
+    }
+
+    private void search(OfferSearchRequest request, OfferSortField sortField, Sort.Direction direction) {
+        offerRepository.search(request, null, sortField, direction, Instant.now(), PageRequest.of(0, 20));
+    }
+
+    // The page query, not its count query
+    private void assertRowQueryUses(String index) {
+        String sql = CapturedSql.last(statement -> !statement.toLowerCase().contains("count("));
+        QueryPlans.preferIndexes(jdbcTemplate);
+        assertThat(QueryPlans.explain(jdbcTemplate, sql)).contains(index);
+    }
+}
@@ -0,0 +1,87 @@
+package com.easybody.repository;
+
+import com.easybody.model.entity.Offer;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.support.PostgisRepositoryTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reading a page of offers and the owner fields response mapping touches (gym name and
+ * location, PT name and location) costs the same number of statements at any page size.
+ */
+class OfferOwnerFetchTest extends PostgisRepositoryTest {
+
+    // Every page below is full, so Spring Data runs the page query and its count query
+    private static final long STATEMENTS_PER_PAGE = 2;
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @BeforeEach
+    void insertOffers() {
+        // Each offer gets its own owner, so a lazy load would be one statement per row
+        for (int i = 0; i < 20; i++) {
+            testData.offer(testData.gym(testData.location(21.0, 105.8)), null, OfferStatus.PENDING);
+            testData.offer(null, testData.ptUser(testData.location(21.0, 105.8)), OfferStatus.PENDING);
+        }
+    }
+
+    @Test
+    void pendingOfferPagesLoadOwnersWithTheOffers() {
+        IntFunction<List<Offer>> pendingPage = size -> offerRepository.findByStatus(OfferStatus.PENDING,
+                PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+
+        assertThat(statementsToRead(pendingPage, 5)).isEqualTo(STATEMENTS_PER_PAGE);
+        assertThat(statementsToRead(pendingPage, 30)).isEqualTo(STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void latestGymOffersLoadOwnersWithTheOffers() {
+        // One gym, each offer with a PT of its own
+        long gymId = testData.gym(testData.location(21.0, 105.8));
+        for (int i = 0; i < 30; i++) {
+            testData.offer(gymId, testData.ptUser(testData.location(21.0, 105.8)), OfferStatus.APPROVED);
+        }
+        // What OfferService.getLatestGymOffers reads: a list, no count query
+        IntFunction<List<Offer>> latest = size -> offerRepository.findByGymIdAndActiveTrueAndStatus(gymId,
+                OfferStatus.APPROVED, PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+
+        assertThat(statementsToRead(latest, 5)).isEqualTo(1);
+        assertThat(statementsToRead(latest, 30)).isEqualTo(1);
+    }
+
+    private long statementsToRead(IntFunction<List<Offer>> pageQuery, int size) {
+        flushAndClear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Offer> page = pageQuery.apply(size);
+        assertThat(page).hasSize(size);
+        page.forEach(OfferOwnerFetchTest::readOwner);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    // The names OfferService.mapToResponse reads, and the owner locations Hibernate would otherwise load per row
+    private static void readOwner(Offer offer) {
+        if (offer.getGym() != null) {
+            offer.getGym().getName();
+            offer.getGym().getLocation().getLatitude();
+        }
+        if (offer.getPtUser() != null) {
+            offer.getPtUser().getUser().getFirstName();
+            offer.getPtUser().getLocation().getLatitude();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.easybody.repository;
+
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Offer rating aggregates maintained by {@code trg_ratings_apply_offer_delta}: every rating
+ * insert, change and delete moves the running sum, count, average and star histogram by its
+ * own delta, or queues it in {@code rating_deltas} for the write-behind flush (V13).
+ */
+class OfferRatingTriggerTest extends PostgisRepositoryTest {
+
+    private long offerId;
+
+    @BeforeEach
+    void insertOffer() {
+        offerId = testData.offer(testData.gym(null), null, OfferStatus.APPROVED);
+    }
+
+    @Test
+    void insertsAddToTheAggregates() {
+        rate(offerId, 5);
+        rate(offerId, 4);
+        rate(offerId, 4);
+
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(13, 3, new BigDecimal("4.33")));
+    }
+
+    @Test
+    void changedRatingMovesTheSumOnly() {
+        long ratingId = rate(offerId, 5);
+        rate(offerId, 3);
+
+        jdbcTemplate.update("UPDATE ratings SET rating = 1 WHERE id = ?", ratingId);
+
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(4, 2, new BigDecimal("2.00")));
+    }
+
+    @Test
+    void unchangedRatingLeavesTheAggregates() {
+        long ratingId = rate(offerId, 5);
+
+        // Hibernate writes every column when it updates a rating's comment
+        jdbcTemplate.update("UPDATE ratings SET rating = rating, offer_id = offer_id, comment = 'Great' WHERE id = ?",
+                ratingId);
+
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(5, 1, new BigDecimal("5.00")));
+    }
+
+    @Test
+    void deletesSubtractFromTheAggregates() {
+        long first = rate(offerId, 5);
+        long second = rate(offerId, 2);
+
+        jdbcTemplate.update("DELETE FROM ratings WHERE id = ?", first);
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(2, 1, new BigDecimal("2.00")));
+
+        jdbcTemplate.update("DELETE FROM ratings WHERE id = ?", second);
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(0, 0, new BigDecimal("0.00")));
+    }
+
+    @Test
+    void movedRatingLeavesOneOfferForTheOther() {
+        long otherOfferId = testData.offer(testData.gym(null), null, OfferStatus.APPROVED);
+        long ratingId = rate(offerId, 4);
+        rate(offerId, 2);
+
+        jdbcTemplate.update("UPDATE ratings SET offer_id = ? WHERE id = ?", otherOfferId, ratingId);
+
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(2, 1, new BigDecimal("2.00")));
+        assertThat(aggregates(otherOfferId)).isEqualTo(new Aggregates(4, 1, new BigDecimal("4.00")));
+    }
+
+    @Test
+    void histogramFollowsEveryChange() {
+        long changed = rate(offerId, 5);
+        rate(offerId, 5);
+        long deleted = rate(offerId, 3);
+        assertThat(histogram(offerId)).containsExactly(0, 0, 1, 0, 2);
+
+        jdbcTemplate.update("UPDATE ratings SET rating = 1 WHERE id = ?", changed);
+        jdbcTemplate.update("DELETE FROM ratings WHERE id = ?", deleted);
+
+        assertThat(histogram(offerId)).containsExactly(1, 0, 0, 0, 1);
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(6, 2, new BigDecimal("3.00")));
+    }
+
+    @Test
+    void deferredRatingsWaitForTheFlush() {
+        deferAggregates();
+        rate(offerId, 5);
+        rate(offerId, 3);
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(0, 0, new BigDecimal("0.00")));
+        assertThat(pendingDeltas()).isEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForList("SELECT flush_rating_deltas()", Long.class)).containsExactly(offerId);
+
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(8, 2, new BigDecimal("4.00")));
+        assertThat(histogram(offerId)).containsExactly(0, 0, 1, 0, 1);
+        assertThat(pendingDeltas()).isZero();
+    }
+
+    @Test
+    void deferredChangesQueueTheirStarMoves() {
+        long ratingId = rate(offerId, 5);
+        deferAggregates();
+
+        jdbcTemplate.update("UPDATE ratings SET rating = 2 WHERE id = ?", ratingId);
+        assertThat(histogram(offerId)).containsExactly(0, 0, 0, 0, 1);
+
+        jdbcTemplate.queryForList("SELECT flush_rating_deltas()", Long.class);
+        assertThat(histogram(offerId)).containsExactly(0, 1, 0, 0, 0);
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(2, 1, new BigDecimal("2.00")));
+    }
+
+    @Test
+    void reconcileLeavesPendingDeltasToTheFlush() {
+        deferAggregates();
+        rate(offerId, 5);
+        rate(offerId, 2);
+
+        // Another instance's queued deltas are not counted twice
+        assertThat(jdbcTemplate.queryForObject("SELECT reconcile_offer_ratings()", Integer.class)).isZero();
+        jdbcTemplate.queryForList("SELECT flush_rating_deltas()", Long.class);
+
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(7, 2, new BigDecimal("3.50")));
+        assertThat(jdbcTemplate.queryForObject("SELECT reconcile_offer_ratings()", Integer.class)).isZero();
+    }
+
+    @Test
+    void reconcileRepairsLostDeltas() {
+        deferAggregates();
+        rate(offerId, 5);
+        rate(offerId, 2);
+        // Drift the flush cannot see, e.g. deltas an older version kept in memory when it crashed
+        jdbcTemplate.update("DELETE FROM rating_deltas");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT reconcile_offer_ratings()", Integer.class)).isPositive();
+        assertThat(aggregates(offerId)).isEqualTo(new Aggregates(7, 2, new BigDecimal("3.50")));
+        assertThat(histogram(offerId)).containsExactly(0, 1, 0, 0, 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT reconcile_offer_ratings()", Integer.class)).isZero();
+    }
+
+    // Write-behind mode (V10), for the rest of the test's transaction
+    private void deferAggregates() {
+        jdbcTemplate.queryForObject("SELECT set_config('easybody.defer_rating_aggregates', 'on', true)", String.class);
+    }
+
+    private int pendingDeltas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rating_deltas", Integer.class);
+    }
+
+    private long rate(long offer, int rating) {
+        return testData.rating(offer, testData.user(Role.CLIENT_USER), rating);
+    }
+
+    private Aggregates aggregates(long offer) {
+        return jdbcTemplate.queryForObject(
+                "SELECT rating_sum, rating_count, average_rating FROM offers WHERE id = ?",
+                (rs, rowNum) -> new Aggregates(rs.getLong("rating_sum"), rs.getInt("rating_count"),
+                        rs.getBigDecimal("average_rating")),
+                offer);
+    }
+
+    // Ratings per star, 1 to 5 (V11)
+    private List<Integer> histogram(long offer) {
+        return jdbcTemplate.queryForObject(
+                "SELECT rating_1_count, rating_2_count, rating_3_count, rating_4_count, rating_5_count " +
+                "FROM offers WHERE id = ?",
+                (rs, rowNum) -> List.of(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5)),
+                offer);
+    }
+
+    private record Aggregates(long sum, int count, BigDecimal average) {
+    }
+}
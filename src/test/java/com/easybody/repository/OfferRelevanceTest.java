@@ -0,0 +1,82 @@
+package com.easybody.repository;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@code sortBy=relevance}: each signal moves an offer up on its own while the others are
+ * equal. Offers created in one test transaction share their creation time. The offer
+ * expected first is always inserted first, so a tie, broken on the higher id, would fail.
+ */
+class OfferRelevanceTest extends PostgisRepositoryTest {
+
+    private static final double LATITUDE = -45.0;
+    private static final double LONGITUDE = 170.0;
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Test
+    void manyGoodRatingsOutrankOnePerfectRating() {
+        long gymId = testData.gym(null);
+        long many = testData.offer(gymId, null, OfferStatus.APPROVED);
+        long single = testData.offer(gymId, null, OfferStatus.APPROVED);
+        rate(single, 5);
+        for (int i = 0; i < 10; i++) {
+            rate(many, 5);
+            rate(many, 4);
+        }
+
+        // 5.00 from one rating is pulled further towards the prior than 4.50 from twenty
+        assertThat(rank(OfferSearchRequest.builder().gymId(gymId).build())).containsExactly(many, single);
+    }
+
+    @Test
+    void newerOffersRankAboveOlderOnes() {
+        long gymId = testData.gym(null);
+        long newer = testData.offer(gymId, null, OfferStatus.APPROVED);
+        long older = testData.offer(gymId, null, OfferStatus.APPROVED);
+        jdbcTemplate.update("UPDATE offers SET created_at = NOW() - INTERVAL '60 days' WHERE id = ?", older);
+        jdbcTemplate.update("UPDATE offers SET created_at = NOW() - INTERVAL '1 day' WHERE id = ?", newer);
+
+        assertThat(rank(OfferSearchRequest.builder().gymId(gymId).build())).containsExactly(newer, older);
+    }
+
+    @Test
+    void nearerOffersRankAboveFartherOnes() {
+        long near = testData.offer(testData.gym(testData.location(LATITUDE + 0.005, LONGITUDE)), null,
+                OfferStatus.APPROVED);
+        long far = testData.offer(testData.gym(testData.location(LATITUDE + 0.04, LONGITUDE)), null,
+                OfferStatus.APPROVED);
+
+        OfferSearchRequest request = OfferSearchRequest.builder().latitude(LATITUDE).longitude(LONGITUDE).build();
+        assertThat(rank(request, 10_000.0)).containsExactly(near, far);
+    }
+
+    private void rate(long offerId, int rating) {
+        testData.rating(offerId, testData.user(Role.CLIENT_USER), rating);
+    }
+
+    private List<Long> rank(OfferSearchRequest request) {
+        return rank(request, null);
+    }
+
+    private List<Long> rank(OfferSearchRequest request, Double radiusMeters) {
+        return offerRepository.search(request, radiusMeters, OfferSortField.RELEVANCE, Sort.Direction.DESC,
+                        Instant.now(), PageRequest.of(0, 20)).stream()
+                .map(OfferSearchRow::id)
+                .toList();
+    }
+}
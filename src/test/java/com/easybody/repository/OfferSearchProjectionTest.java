@@ -0,0 +1,110 @@
+package com.easybody.repository;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import com.easybody.support.PostgisRepositoryTest;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Offer search reads {@link OfferSearchRow}s column by column: every field the response needs
+ * comes from the one statement, and no entity enters the persistence context.
+ */
+class OfferSearchProjectionTest extends PostgisRepositoryTest {
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Test
+    void gymOfferRowCarriesTheGymAndItsLocation() {
+        long locationId = testData.location(21.0285, 105.8542);
+        long gymId = testData.gym("Iron Temple", "Hà Nội", locationId, true);
+        long offerId = testData.offer(gymId, null, OfferStatus.APPROVED, true, new BigDecimal("250.00"));
+        testData.rating(offerId, testData.user(Role.CLIENT_USER), 4);
+        testData.rating(offerId, testData.user(Role.CLIENT_USER), 5);
+
+        OfferSearchRow row = searchOne(OfferSearchRequest.builder().gymId(gymId).build());
+
+        assertThat(row.id()).isEqualTo(offerId);
+        assertThat(row.offerType()).isEqualTo("GYM_OFFER");
+        assertThat(row.gymName()).isEqualTo("Iron Temple");
+        assertThat(row.ptUserName()).isNull();
+        assertThat(row.price()).isEqualByComparingTo("250");
+        assertThat(row.averageRating()).isEqualByComparingTo("4.5");
+        assertThat(row.ratingCount()).isEqualTo(2);
+        assertThat(row.locationId()).isEqualTo(locationId);
+        assertThat(row.latitude()).isEqualTo(21.0285);
+        assertThat(row.longitude()).isEqualTo(105.8542);
+        assertThat(row.createdAt()).isNotNull();
+        // Only geo searches have a distance
+        assertThat(row.distanceKm()).isNull();
+    }
+
+    @Test
+    void ptOfferRowCarriesThePtNameAndLocation() {
+        long locationId = testData.location(10.7769, 106.7009);
+        long ptUserId = testData.ptUser(locationId);
+        long offerId = testData.offer(null, ptUserId, OfferStatus.APPROVED);
+        String name = jdbcTemplate.queryForObject(
+                "SELECT u.first_name || ' ' || u.last_name FROM pt_users pt JOIN users u ON u.id = pt.user_id " +
+                "WHERE pt.id = ?", String.class, ptUserId);
+
+        OfferSearchRow row = searchOne(OfferSearchRequest.builder().ptUserId(ptUserId).build());
+
+        assertThat(row.id()).isEqualTo(offerId);
+        assertThat(row.offerType()).isEqualTo("PT_OFFER");
+        assertThat(row.gymName()).isNull();
+        assertThat(row.ptUserName()).isEqualTo(name);
+        assertThat(row.locationId()).isEqualTo(locationId);
+        assertThat(row.ratingCount()).isZero();
+    }
+
+    @Test
+    void gymOfferWithoutGymLocationIgnoresThePtLocation() {
+        long gymId = testData.gym(null);
+        long offerId = testData.offer(gymId, testData.ptUser(testData.location(10.7769, 106.7009)),
+                OfferStatus.APPROVED);
+
+        OfferSearchRow row = searchOne(OfferSearchRequest.builder().gymId(gymId).build());
+
+        assertThat(row.id()).isEqualTo(offerId);
+        assertThat(row.locationId()).isNull();
+        assertThat(row.latitude()).isNull();
+    }
+
+    @Test
+    void searchLeavesThePersistenceContextEmpty() {
+        long gymId = testData.gym(testData.location(21.0285, 105.8542));
+        for (int i = 0; i < 5; i++) {
+            testData.offer(gymId, testData.ptUser(null), OfferStatus.APPROVED);
+        }
+        flushAndClear();
+
+        List<OfferSearchRow> rows = search(OfferSearchRequest.builder().gymId(gymId).build());
+
+        assertThat(rows).hasSize(5);
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    private OfferSearchRow searchOne(OfferSearchRequest request) {
+        List<OfferSearchRow> rows = search(request);
+        assertThat(rows).hasSize(1);
+        return rows.get(0);
+    }
+
+    private List<OfferSearchRow> search(OfferSearchRequest request) {
+        return offerRepository.search(request, null, OfferSortField.CREATED_AT, Sort.Direction.DESC, Instant.now(),
+                PageRequest.of(0, 20)).getContent();
+    }
+}
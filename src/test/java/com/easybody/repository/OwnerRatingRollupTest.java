@@ -0,0 +1,114 @@
+package com.easybody.repository;
+
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Gym and PT rating rollups (V12): the pooled ratings of their active, approved offers,
+ * moved by {@code trg_offers_apply_owner_rating} whenever an offer's aggregates,
+ * visibility or owner change.
+ */
+class OwnerRatingRollupTest extends PostgisRepositoryTest {
+
+    private long gymId;
+    private long ptUserId;
+
+    @BeforeEach
+    void insertOwners() {
+        gymId = testData.gym(null);
+        ptUserId = testData.ptUser(null);
+    }
+
+    @Test
+    void poolsRatingsOfApprovedOffers() {
+        long first = testData.offer(gymId, null, OfferStatus.APPROVED);
+        long second = testData.offer(gymId, null, OfferStatus.APPROVED);
+        long pending = testData.offer(gymId, null, OfferStatus.PENDING);
+        rate(first, 5);
+        rate(first, 4);
+        rate(second, 3);
+        rate(pending, 1);
+
+        assertThat(rollup("gyms", gymId)).isEqualTo(new Rollup(12, 3, 2, new BigDecimal("4.00")));
+    }
+
+    @Test
+    void offerWithGymAndPtCountsForBoth() {
+        long offer = testData.offer(gymId, ptUserId, OfferStatus.APPROVED);
+        rate(offer, 4);
+
+        assertThat(rollup("gyms", gymId)).isEqualTo(new Rollup(4, 1, 1, new BigDecimal("4.00")));
+        assertThat(rollup("pt_users", ptUserId)).isEqualTo(new Rollup(4, 1, 1, new BigDecimal("4.00")));
+    }
+
+    @Test
+    void hiddenOfferLeavesTheRollupUntilShownAgain() {
+        long rated = testData.offer(gymId, null, OfferStatus.APPROVED);
+        long other = testData.offer(gymId, null, OfferStatus.APPROVED);
+        rate(rated, 5);
+        rate(other, 2);
+
+        jdbcTemplate.update("UPDATE offers SET active = false WHERE id = ?", rated);
+        assertThat(rollup("gyms", gymId)).isEqualTo(new Rollup(2, 1, 1, new BigDecimal("2.00")));
+
+        jdbcTemplate.update("UPDATE offers SET active = true, status = 'REJECTED' WHERE id = ?", rated);
+        assertThat(rollup("gyms", gymId)).isEqualTo(new Rollup(2, 1, 1, new BigDecimal("2.00")));
+
+        jdbcTemplate.update("UPDATE offers SET status = 'APPROVED' WHERE id = ?", rated);
+        assertThat(rollup("gyms", gymId)).isEqualTo(new Rollup(7, 2, 2, new BigDecimal("3.50")));
+    }
+
+    @Test
+    void movedOfferTakesItsRatingsToTheNewOwner() {
+        long otherGymId = testData.gym(null);
+        long offer = testData.offer(gymId, null, OfferStatus.APPROVED);
+        rate(offer, 3);
+
+        jdbcTemplate.update("UPDATE offers SET gym_id = ? WHERE id = ?", otherGymId, offer);
+
+        assertThat(rollup("gyms", gymId)).isEqualTo(new Rollup(0, 0, 0, new BigDecimal("0.00")));
+        assertThat(rollup("gyms", otherGymId)).isEqualTo(new Rollup(3, 1, 1, new BigDecimal("3.00")));
+    }
+
+    @Test
+    void offerLosingItsLastRatingIsNoLongerCountedAsRated() {
+        long offer = testData.offer(null, ptUserId, OfferStatus.APPROVED);
+        long rating = rate(offer, 4);
+
+        jdbcTemplate.update("DELETE FROM ratings WHERE id = ?", rating);
+
+        assertThat(rollup("pt_users", ptUserId)).isEqualTo(new Rollup(0, 0, 0, new BigDecimal("0.00")));
+    }
+
+    @Test
+    void reconcileRepairsDriftedRollups() {
+        long offer = testData.offer(gymId, null, OfferStatus.APPROVED);
+        rate(offer, 5);
+        jdbcTemplate.update("UPDATE gyms SET rating_sum = 99, rating_count = 9 WHERE id = ?", gymId);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT reconcile_owner_ratings()", Integer.class)).isPositive();
+        assertThat(rollup("gyms", gymId)).isEqualTo(new Rollup(5, 1, 1, new BigDecimal("5.00")));
+    }
+
+    private long rate(long offerId, int rating) {
+        return testData.rating(offerId, testData.user(Role.CLIENT_USER), rating);
+    }
+
+    private Rollup rollup(String ownerTable, long ownerId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT rating_sum, rating_count, rated_offer_count, average_rating FROM " + ownerTable + " WHERE id = ?",
+                (rs, rowNum) -> new Rollup(rs.getLong("rating_sum"), rs.getInt("rating_count"),
+                        rs.getInt("rated_offer_count"), rs.getBigDecimal("average_rating")),
+                ownerId);
+    }
+
+    private record Rollup(long sum, int count, int ratedOffers, BigDecimal average) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.easybody.repository;
+
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The single-statement rating writes: {@code insertIfAbsent} and {@code upsert} write through
+ * one CTE and return the row with the offer's title, or nothing when there is nothing to write.
+ * RatingService tells the empty results apart by whether the offer exists (409 or 404).
+ */
+class RatingWriteTest extends PostgisRepositoryTest {
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    private long offerId;
+    private long clientUserId;
+
+    @BeforeEach
+    void insertOffer() {
+        offerId = testData.offer(testData.gym(null), null, OfferStatus.APPROVED);
+        clientUserId = testData.user(Role.CLIENT_USER);
+    }
+
+    @Test
+    void insertReturnsTheWrittenRowWithTheOfferTitle() {
+        RatingWrite written = ratingRepository.insertIfAbsent(offerId, clientUserId, 4, "Good").orElseThrow();
+
+        assertThat(written.getOfferTitle()).isEqualTo(offerTitle());
+        assertThat(written.getCreatedAt()).isNotNull();
+        assertThat(stored(written.getId())).isEqualTo(new StoredRating(offerId, clientUserId, 4, "Good"));
+    }
+
+    @Test
+    void insertOfASecondRatingWritesNothing() {
+        long firstId = ratingRepository.insertIfAbsent(offerId, clientUserId, 4, "Good").orElseThrow().getId();
+
+        Optional<RatingWrite> second = ratingRepository.insertIfAbsent(offerId, clientUserId, 1, "Changed my mind");
+
+        // Empty with the offer present: RatingService answers 409
+        assertThat(second).isEmpty();
+        assertThat(offerRepository.existsById(offerId)).isTrue();
+        assertThat(stored(firstId)).isEqualTo(new StoredRating(offerId, clientUserId, 4, "Good"));
+        assertThat(aggregates()).containsExactly(4L, 1L);
+    }
+
+    @Test
+    void insertForAMissingOfferWritesNothing() {
+        long missingOfferId = offerId + 1_000;
+
+        // Empty with no offer: RatingService answers 404
+        assertThat(ratingRepository.insertIfAbsent(missingOfferId, clientUserId, 4, null)).isEmpty();
+        assertThat(offerRepository.existsById(missingOfferId)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ratings WHERE client_user_id = ?",
+                Integer.class, clientUserId)).isZero();
+    }
+
+    @Test
+    void upsertReplacesTheRatingAndMovesItBetweenStars() {
+        long ratingId = ratingRepository.upsert(offerId, clientUserId, 5, "Great").orElseThrow().getId();
+
+        RatingWrite replaced = ratingRepository.upsert(offerId, clientUserId, 2, "Not so great").orElseThrow();
+
+        assertThat(replaced.getId()).isEqualTo(ratingId);
+        assertThat(replaced.getOfferTitle()).isEqualTo(offerTitle());
+        assertThat(stored(ratingId)).isEqualTo(new StoredRating(offerId, clientUserId, 2, "Not so great"));
+        assertThat(aggregates()).containsExactly(2L, 1L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT ARRAY[rating_1_count, rating_2_count, rating_3_count, rating_4_count, rating_5_count]::text " +
+                "FROM offers WHERE id = ?", String.class, offerId)).isEqualTo("{0,1,0,0,0}");
+    }
+
+    @Test
+    void upsertForAMissingOfferWritesNothing() {
+        assertThat(ratingRepository.upsert(offerId + 1_000, clientUserId, 3, null)).isEmpty();
+    }
+
+    private String offerTitle() {
+        return jdbcTemplate.queryForObject("SELECT title FROM offers WHERE id = ?", String.class, offerId);
+    }
+
+    // Sum and count the ratings trigger keeps on the offer
+    private List<Long> aggregates() {
+        return jdbcTemplate.queryForObject("SELECT rating_sum, rating_count FROM offers WHERE id = ?",
+                (rs, rowNum) -> List.of(rs.getLong(1), rs.getLong(2)), offerId);
+    }
+
+    private StoredRating stored(long ratingId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT offer_id, client_user_id, rating, comment FROM ratings WHERE id = ?",
+                (rs, rowNum) -> new StoredRating(rs.getLong("offer_id"), rs.getLong("client_user_id"),
+                        rs.getInt("rating"), rs.getString("comment")),
+                ratingId);
+    }
+
+    private record StoredRating(long offerId, long clientUserId, int rating, String comment) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.easybody.service;
+
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.repository.OfferRepository;
+import com.easybody.repository.OfferSearchRow;
+import com.easybody.support.PostgisRepositoryTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * NDJSON export of an offer search: the cursor-backed stream returns every match in search
+ * order across fetches, and the exporter writes one JSON object per line for it.
+ */
+class OfferExportTest extends PostgisRepositoryTest {
+
+    // Smaller than the result, so the cursor fetches several times
+    private static final int FETCH_SIZE = 3;
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> offerIds = new ArrayList<>();
+    private OfferSearchRequest request;
+
+    @BeforeEach
+    void insertOffers() {
+        long gymId = testData.gym(null);
+        for (int i = 0; i < 10; i++) {
+            offerIds.add(testData.offer(gymId, null, OfferStatus.APPROVED));
+        }
+        testData.offer(gymId, null, OfferStatus.PENDING);
+        request = OfferSearchRequest.builder().gymId(gymId).build();
+    }
+
+    @Test
+    void streamReturnsEveryMatchInSearchOrder() {
+        List<Long> searched = offerRepository.search(request, null, OfferSortField.PRICE, Sort.Direction.ASC,
+                Instant.now(), PageRequest.of(0, 100)).map(OfferSearchRow::id).getContent();
+
+        List<Long> streamed;
+        try (Stream<OfferSearchRow> rows = stream()) {
+            streamed = rows.map(OfferSearchRow::id).toList();
+        }
+
+        assertThat(streamed).containsExactlyInAnyOrderElementsOf(offerIds).containsExactlyElementsOf(searched);
+    }
+
+    @Test
+    void exportWritesOneJsonObjectPerLine() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(new TransactionTemplate(transactionManager), objectMapper,
+                entityManager);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export("offers", this::stream, row -> Map.of("id", row.id(), "title", row.title())).writeTo(out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        List<Long> exported = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            exported.add(objectMapper.readTree(line).get("id").asLong());
+        }
+        assertThat(exported).containsExactlyInAnyOrderElementsOf(offerIds);
+    }
+
+    private Stream<OfferSearchRow> stream() {
+        return offerRepository.stream(request, null, OfferSortField.PRICE, Sort.Direction.ASC, Instant.now(), FETCH_SIZE);
+    }
+}
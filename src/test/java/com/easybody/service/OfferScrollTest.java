@@ -0,0 +1,158 @@
+package com.easybody.service;
+
+import com.easybody.config.PaginationProperties;
+import com.easybody.config.SearchProperties;
+import com.easybody.dto.request.OfferSearchRequest;
+import com.easybody.dto.response.CursorPageResponse;
+import com.easybody.dto.response.OfferSearchResponse;
+import com.easybody.model.enums.OfferSortField;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import com.easybody.repository.OfferRepository;
+import com.easybody.repository.OfferSearchRow;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset scrolling through {@link OfferService#scrollOffers}: paging to the end by cursor
+ * returns every match exactly once, in the order of the offset search, for every sort field
+ * and direction. The fixtures tie on every sort key so pages break inside runs of equal values.
+ */
+class OfferScrollTest extends PostgisRepositoryTest {
+
+    // Far from the seed data, so only the fixtures match
+    private static final double LATITUDE = -45.0;
+    private static final double LONGITUDE = 170.0;
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Autowired
+    private SearchProperties searchProperties;
+
+    private OfferService offerService;
+    private final List<Long> offerIds = new ArrayList<>();
+
+    @BeforeEach
+    void insertOffers() {
+        offerService = new OfferService(offerRepository, null, null, null, searchProperties,
+                new PaginationProperties(), null, null, null, null);
+
+        long sharedLocation = testData.location(LATITUDE + 0.01, LONGITUDE);
+        List<Long> gyms = List.of(
+                testData.gym(sharedLocation),
+                testData.gym(sharedLocation),
+                testData.gym(testData.location(LATITUDE + 0.02, LONGITUDE)));
+        long pt = testData.ptUser(testData.location(LATITUDE, LONGITUDE + 0.03));
+
+        for (int i = 0; i < 24; i++) {
+            Long gymId = i % 4 < 3 ? gyms.get(i % 4) : null;
+            long offerId = testData.offer(gymId, gymId == null ? pt : null, OfferStatus.APPROVED, true,
+                    new BigDecimal(i % 2 == 0 ? "50.00" : "100.00"));
+            // Three creation times, two rating levels and unrated offers: every sort key has ties
+            jdbcTemplate.update("UPDATE offers SET created_at = TIMESTAMPTZ '2026-01-01 00:00:00+00' " +
+                    "+ make_interval(days => ?) WHERE id = ?", i % 3, offerId);
+            if (i % 3 != 2) {
+                testData.rating(offerId, testData.user(Role.CLIENT_USER), i % 3 == 0 ? 5 : 3);
+            }
+            offerIds.add(offerId);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(OfferSortField.class)
+    void scrollingToTheEndReturnsEveryOfferOnceInSearchOrder(OfferSortField sortField) {
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            List<OfferSearchRow> expected = offsetSearch(sortField, direction);
+            assertTiesOrderedById(expected, direction);
+
+            List<Long> scrolled = scrollAll(sortField, direction);
+
+            assertThat(scrolled).as("%s %s", sortField, direction)
+                    .doesNotHaveDuplicates()
+                    .containsExactlyInAnyOrderElementsOf(offerIds)
+                    .containsExactlyElementsOf(expected.stream().map(OfferSearchRow::id).toList());
+        }
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        String cursor = offerService.scrollOffers(request(OfferSortField.PRICE, Sort.Direction.ASC, null)).getNextCursor();
+
+        assertThatThrownBy(() -> offerService.scrollOffers(request(OfferSortField.CREATED_AT, Sort.Direction.ASC, cursor)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not match the requested sort");
+        assertThatThrownBy(() -> offerService.scrollOffers(request(OfferSortField.PRICE, Sort.Direction.DESC, cursor)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not match the requested sort");
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> offerService.scrollOffers(request(OfferSortField.PRICE, Sort.Direction.ASC, "not-a-cursor")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid search cursor");
+    }
+
+    private List<Long> scrollAll(OfferSortField sortField, Sort.Direction direction) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<OfferSearchResponse> page = offerService.scrollOffers(request(sortField, direction, cursor));
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            page.getContent().forEach(offer -> ids.add(offer.getId()));
+            cursor = page.getNextCursor();
+            assertThat(page.getHasNext()).isEqualTo(cursor != null);
+        } while (cursor != null && ids.size() <= offerIds.size());
+        return ids;
+    }
+
+    // The same search offset-paginated in one page, with the sort keys the cursors carry
+    private List<OfferSearchRow> offsetSearch(OfferSortField sortField, Sort.Direction direction) {
+        OfferSearchRequest request = request(sortField, direction, null);
+        return offerRepository.search(request, searchProperties.radiusMeters(request.getRadiusKm()), sortField,
+                direction, Instant.now(), PageRequest.of(0, 100)).getContent();
+    }
+
+    private static void assertTiesOrderedById(List<OfferSearchRow> rows, Sort.Direction direction) {
+        boolean tied = false;
+        for (int i = 1; i < rows.size(); i++) {
+            OfferSearchRow previous = rows.get(i - 1);
+            OfferSearchRow current = rows.get(i);
+            if (previous.sortValue().equals(current.sortValue())) {
+                tied = true;
+                assertThat(direction.isAscending() ? current.id() > previous.id() : current.id() < previous.id())
+                        .as("tie at offers %d and %d", previous.id(), current.id())
+                        .isTrue();
+            }
+        }
+        assertThat(tied).as("fixtures tie on the sort key").isTrue();
+    }
+
+    private static OfferSearchRequest request(OfferSortField sortField, Sort.Direction direction, String cursor) {
+        return OfferSearchRequest.builder()
+                .latitude(LATITUDE)
+                .longitude(LONGITUDE)
+                .radiusKm(10.0)
+                .sortBy(sortField.getProperty())
+                .sortDirection(direction.name())
+                .size(PAGE_SIZE)
+                .cursor(cursor)
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.easybody.service;
+
+import com.easybody.config.RatingProperties;
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import com.easybody.support.PostgisRepositoryTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Write-behind aggregates against the database: deferred ratings queue their deltas in
+ * {@code rating_deltas}, and {@link RatingAggregateBuffer#flush()} applies and announces them.
+ */
+class RatingAggregateBufferTest extends PostgisRepositoryTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Object> events = new ArrayList<>();
+    private RatingAggregateBuffer buffer;
+    private long offerId;
+
+    @BeforeEach
+    void createBuffer() {
+        // Not started: the test flushes by hand
+        buffer = new RatingAggregateBuffer(entityManager, jdbcTemplate, events::add, new RatingProperties());
+        offerId = testData.offer(testData.gym(null), null, OfferStatus.APPROVED);
+    }
+
+    @AfterEach
+    void stopBuffer() {
+        buffer.shutdown();
+    }
+
+    @Test
+    void flushAppliesQueuedDeltasWithOneEvent() {
+        long otherOfferId = testData.offer(testData.gym(null), null, OfferStatus.APPROVED);
+        buffer.deferAggregates();
+        rate(offerId, 5);
+        rate(offerId, 4);
+        rate(otherOfferId, 1);
+        assertThat(ratingCount(offerId)).isZero();
+
+        buffer.flush();
+
+        assertThat(ratingCount(offerId)).isEqualTo(2);
+        assertThat(ratingCount(otherOfferId)).isEqualTo(1);
+        assertThat(pendingDeltas()).isZero();
+        assertThat(events).singleElement()
+                .isInstanceOfSatisfying(OfferRatingsChangedEvent.class,
+                        event -> assertThat(event.offerIds()).containsExactly(offerId, otherOfferId));
+    }
+
+    @Test
+    void emptyFlushPublishesNothing() {
+        buffer.flush();
+
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void failedFlushKeepsTheDeltasForTheNextOne() {
+        buffer.deferAggregates();
+        rate(offerId, 3);
+        jdbcTemplate.execute("ALTER TABLE offers ADD CONSTRAINT offers_reject_flush CHECK (rating_count = 0) NOT VALID");
+
+        // In production the failed flush is its own transaction; here a savepoint stands in for it
+        TransactionTemplate savepoint = new TransactionTemplate(transactionManager);
+        savepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        savepoint.executeWithoutResult(status -> {
+            buffer.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(events).isEmpty();
+        assertThat(pendingDeltas()).isEqualTo(1);
+        assertThat(ratingCount(offerId)).isZero();
+
+        jdbcTemplate.execute("ALTER TABLE offers DROP CONSTRAINT offers_reject_flush");
+        buffer.flush();
+
+        assertThat(ratingCount(offerId)).isEqualTo(1);
+        assertThat(events).hasSize(1);
+    }
+
+    @Test
+    void shutdownDrainsWhatIsQueued() {
+        buffer.deferAggregates();
+        rate(offerId, 4);
+
+        buffer.shutdown();
+
+        assertThat(ratingCount(offerId)).isEqualTo(1);
+        assertThat(pendingDeltas()).isZero();
+    }
+
+    private void rate(long offer, int rating) {
+        testData.rating(offer, testData.user(Role.CLIENT_USER), rating);
+    }
+
+    private int ratingCount(long offer) {
+        return jdbcTemplate.queryForObject("SELECT rating_count FROM offers WHERE id = ?", Integer.class, offer);
+    }
+
+    private int pendingDeltas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rating_deltas", Integer.class);
+    }
+}
@@ -0,0 +1,40 @@
+package com.easybody.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the SQL Hibernate prepares, native and generated alike, so a test can EXPLAIN
+ * exactly what a repository method sent. Registered for the {@code test} profile.
+ */
+public class CapturedSql implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    /**
+     * The most recent statement matching {@code filter}, e.g. the row query of a page
+     * rather than its count query.
+     */
+    public static String last(Predicate<String> filter) {
+        for (int i = STATEMENTS.size() - 1; i >= 0; i--) {
+            String sql = STATEMENTS.get(i);
+            if (filter.test(sql)) {
+                return sql;
+            }
+        }
+        throw new AssertionError("No matching statement captured among " + STATEMENTS);
+    }
+}
@@ -0,0 +1,44 @@
+package com.easybody.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * EXPLAIN for statements captured from Hibernate. Hibernate's {@code ?} placeholders become
+ * {@code $n} and the statement is planned with {@code GENERIC_PLAN} (PostgreSQL 16), without
+ * values, like a prepared statement once the server caches its generic plan.
+ */
+public final class QueryPlans {
+
+    private QueryPlans() {
+    }
+
+    /**
+     * Turns off sequential scans for the current transaction. Test tables are tiny and a
+     * sequential scan would win on cost alone; with it penalized a plan still falls back to
+     * one when no index matches the query shape, which is what these tests guard against.
+     */
+    public static void preferIndexes(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    public static String explain(JdbcTemplate jdbcTemplate, String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql), String.class));
+    }
+
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        boolean quoted = false;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.easybody.support;
+
+import com.easybody.model.enums.OfferStatus;
+import com.easybody.model.enums.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts rows straight through JDBC, so fixtures go through the database triggers the
+ * way production writes do and never depend on the services under test.
+ */
+public class TestData {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestData(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * A location at the given point; {@code sync_location_geometry()} fills
+     * {@code coordinates} and {@code geog} from the latitude and longitude.
+     */
+    public long location(double latitude, double longitude) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO locations (latitude, longitude, coordinates) " +
+                "VALUES (?, ?, ST_MakePoint(0, 0)) RETURNING id",
+                Long.class, latitude, longitude);
+    }
+
+    public long user(Role role) {
+        long n = SEQUENCE.incrementAndGet();
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (cognito_sub, email, first_name, last_name, role) " +
+                "VALUES (?, ?, ?, ?, ?) RETURNING id",
+                Long.class, "test-sub-" + n, "test-" + n + "@easybody.test", "First" + n, "Last" + n, role.name());
+    }
+
+    public long gym(String name, String city, Long locationId, boolean active) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO gyms (name, address, city, phone_number, location_id, active) " +
+                "VALUES (?, ?, ?, ?, ?, ?) RETURNING id",
+                Long.class, name, "1 Test Street", city, "+840000000", locationId, active);
+    }
+
+    public long gym(Long locationId) {
+        return gym("Gym " + SEQUENCE.incrementAndGet(), "Hà Nội", locationId, true);
+    }
+
+    public long ptUser(Long locationId) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO pt_users (user_id, location_id) VALUES (?, ?) RETURNING id",
+                Long.class, user(Role.PT_USER), locationId);
+    }
+
+    public long offer(Long gymId, Long ptUserId, OfferStatus status, boolean active, BigDecimal price) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO offers (title, description, offer_type, gym_id, pt_user_id, price, status, active) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?) RETURNING id",
+                Long.class, "Offer " + SEQUENCE.incrementAndGet(), "Test offer",
+                gymId != null ? "GYM_OFFER" : "PT_OFFER", gymId, ptUserId, price, status.name(), active);
+    }
+
+    public long offer(Long gymId, Long ptUserId, OfferStatus status) {
+        return offer(gymId, ptUserId, status, true, new BigDecimal("100.00"));
+    }
+
+    public long rating(long offerId, long clientUserId, int rating) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO ratings (offer_id, client_user_id, rating) VALUES (?, ?, ?) RETURNING id",
+                Long.class, offerId, clientUserId, rating);
+    }
+}